@@ -9,6 +9,7 @@ import cn.dev666.component.event.notice.listener.NoticeEventListener;
 import cn.dev666.component.event.notice.monitor.JvmResourceMonitor;
 import cn.dev666.component.event.notice.monitor.OsResourceMonitor;
 import cn.dev666.component.event.notice.utils.DataUtils;
+import cn.dev666.component.event.notice.utils.StackTraceUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -113,6 +114,7 @@ public class EventNoticeAutoConfiguration {
             profiles = environment.getDefaultProfiles();
         }
         DataUtils.init(Arrays.toString(profiles), applicationName);
+        StackTraceUtils.init(properties.getStackTraceCollapsePackages(), properties.getStackTraceMaxSize());
         return new NoticeEventListener(executor, scheduler, properties);
     }
 
@@ -1,5 +1,7 @@
 package cn.dev666.component.event.notice.config;
 
+import cn.dev666.component.event.notice.enums.EventKeyMode;
+import cn.dev666.component.event.notice.utils.StackTraceUtils;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.convert.DurationUnit;
@@ -7,6 +9,7 @@ import org.springframework.boot.convert.DurationUnit;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 @Data
@@ -25,9 +28,27 @@ public class EventNoticeProperties {
      */
     private Integer threshold = 5;
     /**
-     * 保留事件类型的数量上限，避免过多导致内存溢出，默认1000
+     * 保留事件类型的数量上限，避免过多导致内存溢出，超出后优先淘汰最早出现且近期未再出现的，默认1000
+     *
+     * 超过间隔时间未再出现的事件类型同样会被淘汰
      */
     private Integer maxEventThreshold = 1000;
+    /**
+     * 事件去重键的生成方式，默认按场景 + 唯一码拼接，FINGERPRINT 时按异常类型及栈顶帧、或屏蔽数字后的唯一码计算 64 位哈希
+     */
+    private EventKeyMode keyMode = EventKeyMode.TEXT;
+    /**
+     * FINGERPRINT 方式下，计入指纹的栈顶帧数，默认5
+     */
+    private int fingerprintFrames = 5;
+    /**
+     * 异常通知中堆栈信息的长度上限，超出部分截断，小于等于0时不限制，默认1024
+     */
+    private int stackTraceMaxSize = 1024;
+    /**
+     * 异常通知中需折叠的栈帧包前缀，连续的框架栈帧只输出折叠数，默认 Spring、Tomcat、反射等
+     */
+    private List<String> stackTraceCollapsePackages = StackTraceUtils.DEFAULT_COLLAPSE_PACKAGES;
     /**
      * 避免发送过于频繁，将报警信息进行聚合发送，默认1分钟
      */
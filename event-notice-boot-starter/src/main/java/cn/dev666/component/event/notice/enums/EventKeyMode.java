@@ -0,0 +1,15 @@
+package cn.dev666.component.event.notice.enums;
+
+/**
+ * 事件去重键的生成方式
+ */
+public enum EventKeyMode {
+    /**
+     * 场景 + 唯一码拼接的字符串
+     */
+    TEXT,
+    /**
+     * 场景与事件指纹的 64 位哈希。有异常时取异常类型及栈顶若干帧，否则取唯一码，其中的数字、UUID 等视为相同
+     */
+    FINGERPRINT;
+}
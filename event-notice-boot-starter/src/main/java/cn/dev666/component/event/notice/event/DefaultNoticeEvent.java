@@ -1,27 +1,78 @@
 package cn.dev666.component.event.notice.event;
 
+import cn.dev666.component.event.notice.utils.StackTraceUtils;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
 @Getter
 public class DefaultNoticeEvent extends NoticeEvent {
 
+    static final String STACK_TRACE_KEY = "异常详情";
+
     /**
-     * 其他参数
+     * 其他参数，延迟生成的事件在首次读取时生成
      */
+    @Getter(AccessLevel.NONE)
     private Map<String,String> argsMap;
 
+    /**
+     * 关联的异常
+     */
+    private Throwable throwable;
+
+    /**
+     * 延迟生成的业务参数，确定发送通知时才调用，生成后置空
+     */
+    @Getter(AccessLevel.NONE)
+    private Supplier<Map<String,String>> argsSupplier;
+
     DefaultNoticeEvent(String scene, String uniqueErrorCode, Map<String,String> argsMap) {
+        this(scene, uniqueErrorCode, argsMap, null);
+    }
+
+    DefaultNoticeEvent(String scene, String uniqueErrorCode, Map<String,String> argsMap, Throwable throwable) {
         super(scene, uniqueErrorCode);
         this.argsMap = argsMap;
+        this.throwable = throwable;
+    }
+
+    DefaultNoticeEvent(String scene, String uniqueErrorCode, Supplier<Map<String,String>> argsSupplier, Throwable throwable) {
+        super(scene, uniqueErrorCode);
+        this.argsSupplier = argsSupplier;
+        this.throwable = throwable;
+    }
+
+    /**
+     * 生成延迟的业务参数，有关联异常时，生成堆栈信息放入业务参数，重复调用无影响
+     */
+    @Override
+    public synchronized void materialize() {
+        if (argsSupplier != null) {
+            argsMap = argsSupplier.get();
+            argsSupplier = null;
+        }
+        if (throwable != null && argsMap != null && !argsMap.containsKey(STACK_TRACE_KEY)) {
+            argsMap.put(STACK_TRACE_KEY, StackTraceUtils.getStackTrace(throwable));
+        }
+    }
+
+    /**
+     * 其他参数，延迟生成的事件此时才生成
+     */
+    public Map<String,String> getArgsMap() {
+        materialize();
+        return argsMap;
     }
 
     @Override
     public StringBuilder getContent() {
+        Map<String,String> args = getArgsMap();
         StringBuilder sb = super.getContent();
-        if (argsMap != null && argsMap.size() > 0) {
-            for (Map.Entry<String, String> entry : argsMap.entrySet()) {
+        if (args != null && args.size() > 0) {
+            for (Map.Entry<String, String> entry : args.entrySet()) {
                 sb.append("\n ").append(entry.getKey()).append(" : ").append(entry.getValue());
             }
         }
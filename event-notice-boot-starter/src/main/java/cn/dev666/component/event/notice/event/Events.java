@@ -1,11 +1,10 @@
 package cn.dev666.component.event.notice.event;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class Events {
 
@@ -33,16 +32,30 @@ public class Events {
     }
 
     /**
-     * 异常事件
+     * 业务参数延迟生成，只在确定发送通知时调用 argsSupplier，间隔时间内被抑制的事件不生成，适用于高频调用的场景
+     *
+     * argsSupplier 应只引用原始参数，格式化、拼接等操作放在其中执行
+     *
+     * @param type             业务场景类型
+     * @param uniqueErrorCode   唯一错误码，用于区分同一场景中，错误是否相同及错误数累计
+     * @param argsSupplier      业务参数
+     */
+    public static DefaultNoticeEvent newLazyEvent(String type, String uniqueErrorCode, Supplier<Map<String,String>> argsSupplier){
+        return new DefaultNoticeEvent(type, uniqueErrorCode, argsSupplier, null);
+    }
+
+    /**
+     * 异常事件，请求参数及堆栈信息在确定发送通知时才生成
      *
      * @param url   请求URL
      * @param e     异常
      */
     public static DefaultNoticeEvent exceptionEvent(String url, Exception e){
-        Map<String,String> argsMap = new LinkedHashMap<>(2);
-        argsMap.put("请求URL", url);
-        argsMap.put("异常详情", getStackTrace(e, 1024));
-        return newEvent("系统异常", e.getMessage(), argsMap);
+        return new DefaultNoticeEvent("系统异常", e.getMessage(), () -> {
+            Map<String,String> argsMap = new LinkedHashMap<>(2);
+            argsMap.put("请求URL", url);
+            return argsMap;
+        }, e);
     }
 
     /**
@@ -53,11 +66,7 @@ public class Events {
      * @param params    请求参数
      */
     public static DefaultNoticeEvent slowRequestEvent(String url, long time, String... params){
-        Map<String,String> argsMap = new LinkedHashMap<>(3);
-        argsMap.put("请求URL", url);
-        argsMap.put("请求参数", Arrays.deepToString(params));
-        argsMap.put("请求耗时", time + " ms");
-        return newEvent("处理请求耗时过长", url, argsMap);
+        return newLazyEvent("处理请求耗时过长", url, () -> slowArgs("请求URL", url, "请求参数", params, "请求耗时", time));
     }
 
     /**
@@ -68,11 +77,7 @@ public class Events {
      * @param params    请求参数
      */
     public static DefaultNoticeEvent slowThirdRequestEvent(String url, long time, String... params){
-        Map<String,String> argsMap = new LinkedHashMap<>(3);
-        argsMap.put("三方请求URL", url);
-        argsMap.put("请求参数", Arrays.deepToString(params));
-        argsMap.put("三方请求耗时", time + " ms");
-        return newEvent("请求三方耗时过长", url, argsMap);
+        return newLazyEvent("请求三方耗时过长", url, () -> slowArgs("三方请求URL", url, "请求参数", params, "三方请求耗时", time));
     }
 
     /**
@@ -83,11 +88,7 @@ public class Events {
      * @param params    参数
      */
     public static DefaultNoticeEvent slowSqlEvent(String sql, long time, String... params){
-        Map<String,String> argsMap = new LinkedHashMap<>(3);
-        argsMap.put("SQL", sql);
-        argsMap.put("SQL参数", Arrays.deepToString(params));
-        argsMap.put("SQL耗时", time + " ms");
-        return newEvent("SQL执行耗时过长", sql, argsMap);
+        return newLazyEvent("SQL执行耗时过长", sql, () -> slowArgs("SQL", sql, "SQL参数", params, "SQL耗时", time));
     }
 
     /**
@@ -98,11 +99,7 @@ public class Events {
      * @param params    参数
      */
     public static DefaultNoticeEvent slowTaskEvent(String taskName, long time, String... params){
-        Map<String,String> argsMap = new LinkedHashMap<>(3);
-        argsMap.put("任务名称", taskName);
-        argsMap.put("任务参数", Arrays.deepToString(params));
-        argsMap.put("执行耗时", time + " ms");
-        return newEvent("任务执行耗时过长", taskName, argsMap);
+        return newLazyEvent("任务执行耗时过长", taskName, () -> slowArgs("任务名称", taskName, "任务参数", params, "执行耗时", time));
     }
 
     /**
@@ -116,34 +113,33 @@ public class Events {
      */
     public static DefaultNoticeEvent poolTaskHeapUpEvent(String poolName, Integer totalThread,
                                                          Integer usedThread, Integer queueTasks, Map<String,Integer> taskNumMap){
-        boolean flag = taskNumMap == null || taskNumMap.size() == 0;
-        Map<String,String> argsMap = new LinkedHashMap<>(4 + (flag ? 0 : taskNumMap.size() + 1));
-        argsMap.put("线程池名", poolName);
-        argsMap.put("线程总数", String.valueOf(totalThread));
-        argsMap.put("使用线程数",  String.valueOf(usedThread));
-        argsMap.put("任务排队数", String.valueOf(queueTasks));
+        return newLazyEvent("线程池任务堆积", poolName, () -> {
+            boolean flag = taskNumMap == null || taskNumMap.size() == 0;
+            Map<String,String> argsMap = new LinkedHashMap<>(4 + (flag ? 0 : taskNumMap.size() + 1));
+            argsMap.put("线程池名", poolName);
+            argsMap.put("线程总数", String.valueOf(totalThread));
+            argsMap.put("使用线程数",  String.valueOf(usedThread));
+            argsMap.put("任务排队数", String.valueOf(queueTasks));
 
-        if (!flag) {
-            argsMap.put("任务分布详情", "");
-            for (Map.Entry<String, Integer> entry : taskNumMap.entrySet()) {
-                argsMap.put(entry.getKey(), String.valueOf(entry.getValue()));
+            if (!flag) {
+                argsMap.put("任务分布详情", "");
+                for (Map.Entry<String, Integer> entry : taskNumMap.entrySet()) {
+                    argsMap.put(entry.getKey(), String.valueOf(entry.getValue()));
+                }
             }
-        }
-        return newEvent("线程池任务堆积", poolName, argsMap);
+            return argsMap;
+        });
     }
 
-
     /**
-     * 获取堆栈信息
+     * 耗时过长类事件的业务参数
      */
-    private static String getStackTrace(Throwable throwable, int maxSize){
-        StringWriter sw = new StringWriter();
-        try (PrintWriter pw = new PrintWriter(sw)) {
-            throwable.printStackTrace(pw);
-            if (maxSize > 0) {
-                return sw.toString().substring(0, maxSize);
-            }
-            return sw.toString();
-        }
+    private static Map<String,String> slowArgs(String nameKey, String name, String paramsKey, String[] params,
+                                               String timeKey, long time){
+        Map<String,String> argsMap = new LinkedHashMap<>(3);
+        argsMap.put(nameKey, name);
+        argsMap.put(paramsKey, Arrays.deepToString(params));
+        argsMap.put(timeKey, time + " ms");
+        return argsMap;
     }
 }
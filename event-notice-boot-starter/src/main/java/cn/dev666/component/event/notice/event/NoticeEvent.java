@@ -48,4 +48,17 @@ public abstract class NoticeEvent extends ApplicationEvent {
     public String getUniqueCode() {
         return uniqueCode;
     }
+
+    /**
+     * 确定发送通知后、分发到各通知方式前调用，用于延迟生成开销较大的通知内容，被抑制的事件不会调用
+     */
+    public void materialize() {
+    }
+
+    /**
+     * 事件关联的异常，用于按异常指纹去重，没有时为空
+     */
+    public Throwable getThrowable() {
+        return null;
+    }
 }
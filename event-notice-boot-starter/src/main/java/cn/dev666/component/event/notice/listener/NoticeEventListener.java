@@ -3,9 +3,10 @@ package cn.dev666.component.event.notice.listener;
 import cn.dev666.component.event.notice.channel.AggregationChannel;
 import cn.dev666.component.event.notice.channel.Channel;
 import cn.dev666.component.event.notice.config.EventNoticeProperties;
+import cn.dev666.component.event.notice.enums.EventKeyMode;
 import cn.dev666.component.event.notice.event.DealEventResult;
 import cn.dev666.component.event.notice.event.NoticeEvent;
-import lombok.Getter;
+import cn.dev666.component.event.notice.utils.FingerprintUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationContext;
@@ -19,20 +20,29 @@ import org.springframework.util.CollectionUtils;
 import java.lang.reflect.ParameterizedType;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 public class NoticeEventListener implements InitializingBean, ApplicationContextAware {
 
-    //累计产生10000次事件后，进行清理操作
-    private static final int CLEAN_THRESHOLD = 10000;
+    //每次新增事件类型时，最多检查的待淘汰数量，淘汰开销与事件类型总数无关
+    private static final int EVICT_PROBES = 4;
 
-    private AtomicInteger cleanCount = new AtomicInteger();
+    //不需要提醒时的处理结果，无状态，共用一个实例
+    private static final DealEventResult NOT_REMIND = new DealEventResult(false, "");
 
-    //实时事件信息。
-    private Map<String, NoticeEventInfo> eventInfoMap = new HashMap<>();
+    //实时事件信息，读取、插入、淘汰均无需加锁。
+    private Map<Object, NoticeEventInfo> eventInfoMap = new ConcurrentHashMap<>();
+
+    //按新增顺序排列的事件信息，按 CLOCK 算法淘汰，近期出现过的事件类型保留一轮
+    private Queue<NoticeEventInfo> evictionQueue = new ConcurrentLinkedQueue<>();
+
+    private AtomicInteger eventInfoSize = new AtomicInteger();
 
     private ApplicationContext applicationContext;
 
@@ -112,17 +122,12 @@ public class NoticeEventListener implements InitializingBean, ApplicationContext
             return;
         }
 
-        String uniqueKey = getKey(event);
-        NoticeEventInfo info;
-        synchronized (uniqueKey.intern()) {
-            info = eventInfoMap.computeIfAbsent(uniqueKey, NoticeEventInfo::new);
-        }
-
         long now = event.getTimestamp();
-        DealEventResult result = info.dealEvent(now);
+        DealEventResult result = dealEvent(getKey(event), now);
         if (result.isRemindFlag()) {
 
             event.setResult(result);
+            event.materialize();
 
             boolean isNotice = false;
 
@@ -153,7 +158,25 @@ public class NoticeEventListener implements InitializingBean, ApplicationContext
                 log.error("根据事件类型 {}，没有找到匹配的通知渠道", event.getClass().getName());
             }
         }
-        cleanCheck();
+    }
+
+    /**
+     * 已存在时只做一次无锁读取，新增时顺带淘汰少量过期或超出数量上限的事件类型
+     */
+    private NoticeEventInfo getEventInfo(Object uniqueKey, long now) {
+        NoticeEventInfo info = eventInfoMap.get(uniqueKey);
+        if (info == null) {
+            NoticeEventInfo created = new NoticeEventInfo(uniqueKey, now);
+            info = eventInfoMap.putIfAbsent(uniqueKey, created);
+            if (info == null) {
+                evictionQueue.offer(created);
+                eventInfoSize.incrementAndGet();
+                evict(now);
+                return created;
+            }
+        }
+        info.touch(now);
+        return info;
     }
 
     @SuppressWarnings("unchecked")
@@ -221,51 +244,92 @@ public class NoticeEventListener implements InitializingBean, ApplicationContext
     }
 
 
-    private String getKey(NoticeEvent event) {
+    /**
+     * TEXT 方式下为拼接的字符串，FINGERPRINT 方式下为 64 位哈希，不生成中间字符串
+     */
+    DealEventResult dealEvent(Object uniqueKey, long now) {
+        return getEventInfo(uniqueKey, now).dealEvent(now);
+    }
+
+    int getEventInfoCount() {
+        return eventInfoSize.get();
+    }
+
+    private Object getKey(NoticeEvent event) {
+        if (properties.getKeyMode() == EventKeyMode.FINGERPRINT) {
+            Throwable throwable = event.getThrowable();
+            return throwable != null
+                    ? FingerprintUtils.fingerprint(event.getScene(), throwable, properties.getFingerprintFrames())
+                    : FingerprintUtils.fingerprint(event.getScene(), event.getUniqueCode());
+        }
         return event.getScene() + ":" + event.getUniqueCode();
     }
 
-    @Getter
+    /**
+     * 单类事件的计数状态，通过 CAS 更新。每次提醒都整体替换为新的统计窗口，
+     * 多个线程同时处理同一类事件时，同一窗口只有一个线程能替换成功并发送提醒
+     */
     private class NoticeEventInfo {
 
-        private final String uniqueCode;
-        private long total;
-        private int intervalTotal;
-        private long lastTime;
+        private final Object uniqueKey;
+        private final AtomicLong total = new AtomicLong();
+
+        //当前统计窗口，首次出现前为空
+        private final AtomicReference<Window> window = new AtomicReference<>();
+
+        //最近一次出现的时间，用于过期淘汰
+        private volatile long lastSeen;
+
+        //上次淘汰检查后是否再次出现
+        private volatile boolean referenced;
+
+        private NoticeEventInfo(Object uniqueKey, long now) {
+            this.uniqueKey = uniqueKey;
+            this.lastSeen = now;
+        }
+
+        private void touch(long now) {
+            lastSeen = now;
+            if (!referenced) {
+                referenced = true;
+            }
+        }
 
-        private NoticeEventInfo(String uniqueCode) {
-            this.uniqueCode = uniqueCode;
-            this.total = 0;
-            this.intervalTotal = 0;
-            this.lastTime = 0;
+        /**
+         * @return 清除前是否再次出现过
+         */
+        private boolean clearReferenced() {
+            boolean value = referenced;
+            referenced = false;
+            return value;
         }
 
         private DealEventResult dealEvent(long now) {
-            boolean overInterval;
-            boolean overThreshold = false;
-            String frequency = "";
-
-            synchronized(this) {
-                total++;
-                if (lastTime == 0){
-                    overInterval = true;
-                }else {
-                    intervalTotal++;
-                    overInterval = lastTime + properties.getInterval().toMillis() < now;
-                    overThreshold = !overInterval && intervalTotal >= properties.getThreshold();
-                }
+            long count = total.incrementAndGet();
 
-                if (overInterval || overThreshold){
-                    if (lastTime == 0){
-                        frequency = "首次出现";
-                    }else {
-                        frequency = format(Duration.ofMillis(now - lastTime)) + "内累计 " + intervalTotal + " 次出现（总累计 " + total + " 次出现）";
-                    }
-                    intervalTotal = 0;
-                    lastTime = now;
+            Window current = window.get();
+            if (current == null) {
+                if (window.compareAndSet(null, new Window(now))) {
+                    return new DealEventResult(true, "首次出现");
                 }
+                current = window.get();
+            }
+
+            int times = current.total.incrementAndGet();
+            boolean overInterval = current.startTime + properties.getInterval().toMillis() < now;
+            boolean overThreshold = !overInterval && times >= properties.getThreshold();
+            if (!overInterval && !overThreshold) {
+                return NOT_REMIND;
+            }
+
+            // 新窗口总是新对象，即使时间相同也不会被重复替换；其他线程已先一步替换时，本次只计数
+            if (!window.compareAndSet(current, new Window(now))) {
+                return NOT_REMIND;
             }
-            return new DealEventResult(overInterval || overThreshold, frequency);
+            // 替换前其他线程累加的次数一并计入本次提醒
+            int reported = Math.max(current.total.get(), times);
+            String frequency = format(Duration.ofMillis(now - current.startTime)) + "内累计 " + reported + " 次出现（总累计 " + count + " 次出现）";
+            return new DealEventResult(true, frequency);
         }
 
         private String format(Duration duration) {
@@ -275,25 +339,43 @@ public class NoticeEventListener implements InitializingBean, ApplicationContext
         }
     }
 
-    private void cleanCheck() {
-        int count = cleanCount.incrementAndGet();
-
-        // 达到清理次数阈值
-        if (count >= CLEAN_THRESHOLD){
-            cleanCount.set(0);
-
-            //达到清理数量阈值
-            if (eventInfoMap.size() > properties.getMaxEventThreshold()){
-                //按上次发送通知时间，清理最老的。
-                List<NoticeEventInfo> list = new ArrayList<>(eventInfoMap.values());
-                list.sort(Comparator.comparing(NoticeEventInfo::getLastTime));
-                List<NoticeEventInfo> removeList = list.subList(0, eventInfoMap.size() - properties.getMaxEventThreshold());
-                for (NoticeEventInfo noticeEventInfo : removeList) {
-                    synchronized (noticeEventInfo.uniqueCode.intern()) {
-                        eventInfoMap.remove(noticeEventInfo.uniqueCode);
-                    }
+    /**
+     * 统计窗口，开始时间不可变，计数随窗口一起替换
+     */
+    private static class Window {
+
+        private final long startTime;
+        private final AtomicInteger total = new AtomicInteger();
+
+        private Window(long startTime) {
+            this.startTime = startTime;
+        }
+    }
+
+    /**
+     * 从最早新增的事件类型开始检查，超过间隔时间未出现的直接淘汰；
+     * 超出数量上限时，近期出现过的保留一轮，未出现过的淘汰
+     */
+    private void evict(long now) {
+        long ttl = properties.getInterval().toMillis();
+        int max = properties.getMaxEventThreshold();
+        for (int i = 0; i < EVICT_PROBES; i++) {
+            NoticeEventInfo head = evictionQueue.peek();
+            if (head == null || (now - head.lastSeen <= ttl && eventInfoSize.get() <= max)) {
+                return;
+            }
+            NoticeEventInfo info = evictionQueue.poll();
+            if (info == null) {
+                return;
+            }
+            boolean expired = now - info.lastSeen > ttl;
+            if (expired || (eventInfoSize.get() > max && !info.clearReferenced())) {
+                if (eventInfoMap.remove(info.uniqueKey, info)) {
+                    eventInfoSize.decrementAndGet();
                 }
+            }else {
+                evictionQueue.offer(info);
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,96 @@
+package cn.dev666.component.event.notice.utils;
+
+/**
+ * 事件指纹，逐字符计算 64 位哈希，不生成中间字符串
+ */
+public class FingerprintUtils {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    //数字、UUID 等可变内容的占位值
+    private static final int PLACEHOLDER = '#';
+
+    //十六进制串长度达到此值且含数字时，整体视为可变内容，如 UUID、哈希值
+    private static final int HEX_RUN_LENGTH = 8;
+
+    /**
+     * 按异常类型及栈顶 frames 帧计算指纹，与异常信息无关
+     */
+    public static long fingerprint(String scene, Throwable throwable, int frames) {
+        long h = mix(SEED, hash(scene));
+        h = mix(h, throwable.getClass().getName().hashCode());
+        StackTraceElement[] stackTrace = throwable.getStackTrace();
+        int n = Math.min(frames, stackTrace.length);
+        for (int i = 0; i < n; i++) {
+            StackTraceElement element = stackTrace[i];
+            h = mix(h, element.getClassName().hashCode());
+            h = mix(h, hash(element.getMethodName()));
+            h = mix(h, element.getLineNumber());
+        }
+        return finish(h);
+    }
+
+    /**
+     * 按唯一码计算指纹，连续数字、含数字的长十六进制串（如 UUID）各视为一个占位符
+     */
+    public static long fingerprint(String scene, String uniqueCode) {
+        long h = mix(SEED, hash(scene));
+        if (uniqueCode == null) {
+            return finish(h);
+        }
+        int length = uniqueCode.length();
+        int i = 0;
+        while (i < length) {
+            int end = i;
+            boolean hasDigit = false;
+            while (end < length && isHexOrDash(uniqueCode.charAt(end))) {
+                hasDigit |= Character.isDigit(uniqueCode.charAt(end));
+                end++;
+            }
+            if (hasDigit && end - i >= HEX_RUN_LENGTH) {
+                h = mix(h, PLACEHOLDER);
+                i = end;
+                continue;
+            }
+            // 普通字符逐个计入，连续数字只计一次占位符
+            int stop = Math.max(end, i + 1);
+            while (i < stop) {
+                char c = uniqueCode.charAt(i);
+                if (Character.isDigit(c)) {
+                    while (i < stop && Character.isDigit(uniqueCode.charAt(i))) {
+                        i++;
+                    }
+                    h = mix(h, PLACEHOLDER);
+                }else {
+                    h = mix(h, c);
+                    i++;
+                }
+            }
+        }
+        return finish(h);
+    }
+
+    private static boolean isHexOrDash(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F') || c == '-';
+    }
+
+    private static int hash(String value) {
+        return value == null ? 0 : value.hashCode();
+    }
+
+    private static long mix(long h, int value) {
+        return (h ^ value) * SEED;
+    }
+
+    /**
+     * 打散高低位，见 MurmurHash3 fmix64
+     */
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb53a48b2b4e3L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
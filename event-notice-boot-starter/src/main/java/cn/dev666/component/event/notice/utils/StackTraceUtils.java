@@ -0,0 +1,160 @@
+package cn.dev666.component.event.notice.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 堆栈信息，直接遍历栈帧输出，达到长度上限即停止，连续的框架栈帧折叠为一行
+ */
+public class StackTraceUtils {
+
+    //默认折叠的框架包前缀
+    public static final List<String> DEFAULT_COLLAPSE_PACKAGES = Collections.unmodifiableList(Arrays.asList(
+            "org.springframework.", "org.apache.catalina.", "org.apache.coyote.", "org.apache.tomcat.",
+            "io.undertow.", "org.eclipse.jetty.", "io.netty.", "reactor.", "javax.servlet.",
+            "sun.reflect.", "jdk.internal.reflect.", "java.lang.reflect."));
+
+    //追加到截断内容末尾的标记
+    private static final String TRUNCATED = "...";
+
+    //最多输出的 Caused by 及 Suppressed 层数
+    private static final int MAX_CAUSE_DEPTH = 8;
+
+    private static volatile String[] collapsePackages = DEFAULT_COLLAPSE_PACKAGES.toArray(new String[0]);
+
+    private static volatile int maxSize = 1024;
+
+    /**
+     * @param collapsePackages  需折叠的栈帧包前缀，为空时不折叠
+     * @param maxSize           堆栈信息长度上限，小于等于 0 时不限制
+     */
+    public static void init(List<String> collapsePackages, int maxSize){
+        StackTraceUtils.collapsePackages = collapsePackages == null ? new String[0] : collapsePackages.toArray(new String[0]);
+        StackTraceUtils.maxSize = maxSize;
+    }
+
+    public static String getStackTrace(Throwable throwable){
+        return getStackTrace(throwable, maxSize);
+    }
+
+    /**
+     * 格式与 printStackTrace 一致，Caused by 与 Suppressed 合计最多输出 8 层
+     *
+     * @param maxSize   长度上限，小于等于 0 时不限制
+     */
+    public static String getStackTrace(Throwable throwable, int maxSize){
+        int limit = maxSize > 0 ? maxSize : Integer.MAX_VALUE;
+        StringBuilder sb = new StringBuilder(Math.min(limit, 1024) + TRUNCATED.length());
+        if (throwable != null) {
+            Set<Throwable> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            append(sb, throwable, null, "", "", collapsePackages, visited, limit, 0);
+        }
+        return truncate(sb, limit);
+    }
+
+    /**
+     * @param enclosing 外层异常的栈帧，与其相同的栈底帧不再重复输出
+     * @return 达到长度上限时返回 false
+     */
+    private static boolean append(StringBuilder sb, Throwable current, StackTraceElement[] enclosing, String caption,
+                                  String indent, String[] prefixes, Set<Throwable> visited, int limit, int depth) {
+        if (!visited.add(current)) {
+            sb.append(indent).append(caption).append("[CIRCULAR REFERENCE: ").append(current).append("]\n");
+            return sb.length() < limit;
+        }
+        sb.append(indent).append(caption).append(current).append('\n');
+        if (sb.length() >= limit) {
+            return false;
+        }
+
+        StackTraceElement[] trace = current.getStackTrace();
+        int common = 0;
+        if (enclosing != null) {
+            int m = trace.length - 1;
+            int n = enclosing.length - 1;
+            while (m >= 0 && n >= 0 && trace[m].equals(enclosing[n])) {
+                m--;
+                n--;
+            }
+            common = trace.length - 1 - m;
+        }
+
+        int collapsed = 0;
+        for (int i = 0; i < trace.length - common; i++) {
+            StackTraceElement element = trace[i];
+            if (isCollapsed(element.getClassName(), prefixes)) {
+                collapsed++;
+                continue;
+            }
+            appendCollapsed(sb, indent, collapsed);
+            collapsed = 0;
+            appendElement(sb, indent, element);
+            if (sb.length() >= limit) {
+                return false;
+            }
+        }
+        appendCollapsed(sb, indent, collapsed);
+        if (common > 0) {
+            sb.append(indent).append("\t... ").append(common).append(" more\n");
+        }
+        if (sb.length() >= limit) {
+            return false;
+        }
+        if (depth >= MAX_CAUSE_DEPTH) {
+            return true;
+        }
+
+        for (Throwable suppressed : current.getSuppressed()) {
+            if (!append(sb, suppressed, trace, "Suppressed: ", indent + "\t", prefixes, visited, limit, depth + 1)) {
+                return false;
+            }
+        }
+        Throwable cause = current.getCause();
+        return cause == null || append(sb, cause, trace, "Caused by: ", indent, prefixes, visited, limit, depth + 1);
+    }
+
+    private static boolean isCollapsed(String className, String[] prefixes) {
+        for (String prefix : prefixes) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void appendCollapsed(StringBuilder sb, String indent, int collapsed) {
+        if (collapsed > 0) {
+            sb.append(indent).append("\t... ").append(collapsed).append(" framework frames\n");
+        }
+    }
+
+    /**
+     * 与 StackTraceElement.toString 一致，直接写入避免生成中间字符串
+     */
+    private static void appendElement(StringBuilder sb, String indent, StackTraceElement element) {
+        sb.append(indent).append("\tat ").append(element.getClassName()).append('.').append(element.getMethodName()).append('(');
+        String fileName = element.getFileName();
+        if (element.isNativeMethod()) {
+            sb.append("Native Method");
+        }else if (fileName == null) {
+            sb.append("Unknown Source");
+        }else {
+            sb.append(fileName);
+            if (element.getLineNumber() >= 0) {
+                sb.append(':').append(element.getLineNumber());
+            }
+        }
+        sb.append(")\n");
+    }
+
+    private static String truncate(StringBuilder sb, int limit) {
+        if (sb.length() > limit) {
+            sb.setLength(limit);
+            sb.append(TRUNCATED);
+        }
+        return sb.toString();
+    }
+}
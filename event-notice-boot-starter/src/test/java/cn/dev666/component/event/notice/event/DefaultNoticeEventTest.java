@@ -0,0 +1,29 @@
+package cn.dev666.component.event.notice.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DefaultNoticeEventTest {
+
+    @Test
+    void lazyArgsGeneratedOnFirstRead() {
+        AtomicInteger calls = new AtomicInteger();
+        DefaultNoticeEvent event = Events.newLazyEvent("scene", "code", () -> {
+            calls.incrementAndGet();
+            Map<String, String> args = new HashMap<>();
+            args.put("orderId", "42");
+            return args;
+        });
+        assertEquals(0, calls.get());
+
+        assertEquals("42", event.getArgsMap().get("orderId"));
+        event.getArgsMap();
+        event.materialize();
+        assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,138 @@
+package cn.dev666.component.event.notice.listener;
+
+import cn.dev666.component.event.notice.config.EventNoticeProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoticeEventListenerTest {
+
+    private static final int THREADS = 8;
+
+    private static final int ROUNDS = 2000;
+
+    @Test
+    void remindsOnceWhenThresholdReachedConcurrentlyInSameMillisecond() throws Exception {
+        EventNoticeProperties properties = new EventNoticeProperties();
+        properties.setThreshold(50);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                NoticeEventListener listener = new NoticeEventListener(null, null, properties);
+                long now = 1_000_000L;
+                assertTrue(listener.dealEvent("key", now).isRemindFlag(), "首次出现应提醒");
+
+                // 次数介于 threshold 与 2 * threshold - 1 之间，同一毫秒内只应提醒一次
+                int events = properties.getThreshold() * 2 - 1;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Integer>> futures = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    int share = events / THREADS + (t < events % THREADS ? 1 : 0);
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        int reminded = 0;
+                        for (int i = 0; i < share; i++) {
+                            if (listener.dealEvent("key", now).isRemindFlag()) {
+                                reminded++;
+                            }
+                        }
+                        return reminded;
+                    }));
+                }
+                start.countDown();
+
+                int reminded = 0;
+                for (Future<Integer> future : futures) {
+                    reminded += future.get(10, TimeUnit.SECONDS);
+                }
+                assertEquals(1, reminded, "round " + round);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static NoticeEventListener listener(int maxEventThreshold, Duration interval) {
+        EventNoticeProperties properties = new EventNoticeProperties();
+        properties.setThreshold(100);
+        properties.setMaxEventThreshold(maxEventThreshold);
+        properties.setInterval(interval);
+        return new NoticeEventListener(null, null, properties);
+    }
+
+    @Test
+    void evictsUnreferencedWhenOverMaxSize() {
+        NoticeEventListener listener = listener(3, Duration.ofMinutes(60));
+        long now = 1_000_000L;
+        for (int i = 0; i < 4; i++) {
+            assertTrue(listener.dealEvent("key" + i, now).isRemindFlag());
+        }
+        assertEquals(3, listener.getEventInfoCount());
+
+        // 最早新增的 key0 被淘汰，再次出现按首次出现提醒
+        assertFalse(listener.dealEvent("key3", now).isRemindFlag());
+        assertTrue(listener.dealEvent("key0", now).isRemindFlag());
+        assertEquals(3, listener.getEventInfoCount());
+    }
+
+    @Test
+    void keepsReferencedForOneRound() {
+        NoticeEventListener listener = listener(3, Duration.ofMinutes(60));
+        long now = 1_000_000L;
+        for (int i = 0; i < 3; i++) {
+            listener.dealEvent("key" + i, now);
+        }
+        // key0 近期再次出现，保留一轮，改为淘汰 key1
+        listener.dealEvent("key0", now + 1);
+        listener.dealEvent("key3", now + 2);
+        assertEquals(3, listener.getEventInfoCount());
+
+        assertFalse(listener.dealEvent("key0", now + 3).isRemindFlag());
+        assertFalse(listener.dealEvent("key2", now + 3).isRemindFlag());
+        assertTrue(listener.dealEvent("key1", now + 3).isRemindFlag());
+    }
+
+    @Test
+    void evictsExpiredByInterval() {
+        NoticeEventListener listener = listener(1000, Duration.ofMinutes(1));
+        long now = 1_000_000L;
+        listener.dealEvent("key0", now);
+        listener.dealEvent("key1", now);
+        listener.dealEvent("key2", now + 30_000);
+
+        // key0、key1 超过间隔时间未出现，新增事件类型时淘汰；key2 未过期保留
+        listener.dealEvent("key3", now + 60_001);
+        assertEquals(2, listener.getEventInfoCount());
+        assertFalse(listener.dealEvent("key2", now + 60_001).isRemindFlag());
+        assertTrue(listener.dealEvent("key0", now + 60_001).isRemindFlag());
+    }
+
+    @Test
+    void evictionProbesBounded() {
+        NoticeEventListener listener = listener(1000, Duration.ofMinutes(1));
+        long now = 1_000_000L;
+        for (int i = 0; i < 10; i++) {
+            listener.dealEvent("key" + i, now);
+        }
+
+        // 每次新增最多检查 4 个待淘汰事件类型，其余留待后续新增时淘汰
+        long later = now + 60_001;
+        listener.dealEvent("new0", later);
+        assertEquals(7, listener.getEventInfoCount());
+        listener.dealEvent("new1", later);
+        assertEquals(4, listener.getEventInfoCount());
+        listener.dealEvent("new2", later);
+        assertEquals(3, listener.getEventInfoCount());
+    }
+}
@@ -0,0 +1,74 @@
+package cn.dev666.component.event.notice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class FingerprintUtilsTest {
+
+    private static long fp(String uniqueCode) {
+        return FingerprintUtils.fingerprint("scene", uniqueCode);
+    }
+
+    @Test
+    void digitRunsShareFingerprint() {
+        assertEquals(fp("order 123"), fp("order 456"));
+        assertEquals(fp("order 1 item 22"), fp("order 333 item 4"));
+        assertNotEquals(fp("order 123"), fp("order 123 item 4"));
+        assertNotEquals(fp("order 123"), fp("refund 123"));
+    }
+
+    @Test
+    void shortHexWordsNotMasked() {
+        assertNotEquals(fp("code de"), fp("code be"));
+        assertNotEquals(fp("cafe"), fp("face"));
+        // 不含数字的长十六进制串同样按原样计入
+        assertNotEquals(fp("deadbeef"), fp("deadbeee"));
+        // 短串中只有数字被替换
+        assertEquals(fp("abc1"), fp("abc2"));
+        assertNotEquals(fp("abc1"), fp("abd1"));
+    }
+
+    @Test
+    void longHexRunsWithDigitsMasked() {
+        assertEquals(fp("user 550e8400-e29b-41d4-a716-446655440000 missing"),
+                fp("user 123e4567-e89b-12d3-a456-426614174000 missing"));
+        assertEquals(fp("sha 9f86d081884c7d65"), fp("sha a3f1c2e4b5d60718"));
+        assertNotEquals(fp("user 550e8400-e29b-41d4-a716-446655440000 missing"),
+                fp("user 550e8400-e29b-41d4-a716-446655440000 locked"));
+    }
+
+    @Test
+    void sceneAndNullCode() {
+        assertEquals(FingerprintUtils.fingerprint("a", null), FingerprintUtils.fingerprint("a", null));
+        assertNotEquals(FingerprintUtils.fingerprint("a", "x"), FingerprintUtils.fingerprint("b", "x"));
+    }
+
+    private static Throwable throwable(RuntimeException e, String... methods) {
+        StackTraceElement[] stackTrace = new StackTraceElement[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            stackTrace[i] = new StackTraceElement("com.example.OrderService", methods[i], "OrderService.java", 10 + i);
+        }
+        e.setStackTrace(stackTrace);
+        return e;
+    }
+
+    @Test
+    void throwableIgnoresMessage() {
+        assertEquals(FingerprintUtils.fingerprint("s", throwable(new IllegalStateException("order 1"), "a", "b"), 5),
+                FingerprintUtils.fingerprint("s", throwable(new IllegalStateException("other"), "a", "b"), 5));
+        assertNotEquals(FingerprintUtils.fingerprint("s", throwable(new IllegalStateException(), "a", "b"), 5),
+                FingerprintUtils.fingerprint("s", throwable(new IllegalArgumentException(), "a", "b"), 5));
+    }
+
+    @Test
+    void throwableUsesOnlyTopFrames() {
+        Throwable first = throwable(new IllegalStateException(), "save", "submit", "controllerA");
+        Throwable second = throwable(new IllegalStateException(), "save", "submit", "controllerB");
+        assertEquals(FingerprintUtils.fingerprint("s", first, 2), FingerprintUtils.fingerprint("s", second, 2));
+        assertNotEquals(FingerprintUtils.fingerprint("s", first, 3), FingerprintUtils.fingerprint("s", second, 3));
+        // 帧数超过栈深度时使用全部帧
+        assertEquals(FingerprintUtils.fingerprint("s", first, 3), FingerprintUtils.fingerprint("s", first, 100));
+    }
+}
@@ -0,0 +1,121 @@
+package cn.dev666.component.event.notice.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StackTraceUtilsTest {
+
+    @AfterEach
+    void reset() {
+        StackTraceUtils.init(StackTraceUtils.DEFAULT_COLLAPSE_PACKAGES, 1024);
+    }
+
+    private static String printStackTrace(Throwable throwable) {
+        StringWriter writer = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(writer));
+        return writer.toString().replace(System.lineSeparator(), "\n");
+    }
+
+    private static StackTraceElement frame(String className, int line) {
+        return new StackTraceElement(className, "run", className.substring(className.lastIndexOf('.') + 1) + ".java", line);
+    }
+
+    private static Throwable deep(int frames) {
+        Throwable throwable = new IllegalStateException("deep");
+        StackTraceElement[] trace = new StackTraceElement[frames];
+        for (int i = 0; i < frames; i++) {
+            trace[i] = frame("com.example.Service" + i, i);
+        }
+        throwable.setStackTrace(trace);
+        return throwable;
+    }
+
+    @Test
+    void collapseFrameworkFrames() {
+        Throwable throwable = new IllegalStateException("boom");
+        throwable.setStackTrace(new StackTraceElement[]{
+                frame("com.example.OrderService", 1),
+                frame("org.springframework.aop.Proxy", 2),
+                frame("org.springframework.web.Dispatcher", 3),
+                frame("org.apache.catalina.Valve", 4),
+                frame("com.example.OrderController", 5),
+                frame("io.netty.EventLoop", 6)});
+
+        assertEquals("java.lang.IllegalStateException: boom\n"
+                + "\tat com.example.OrderService.run(OrderService.java:1)\n"
+                + "\t... 3 framework frames\n"
+                + "\tat com.example.OrderController.run(OrderController.java:5)\n"
+                + "\t... 1 framework frames\n", StackTraceUtils.getStackTrace(throwable, 0));
+
+        StackTraceUtils.init(Collections.emptyList(), 0);
+        assertEquals(printStackTrace(throwable), StackTraceUtils.getStackTrace(throwable));
+    }
+
+    @Test
+    void causeAndSuppressedMatchPrintStackTrace() {
+        Exception cause = new IllegalArgumentException("cause");
+        Exception root = new RuntimeException("root", cause);
+        Exception suppressed = new IllegalStateException("close failed");
+        suppressed.addSuppressed(new UnsupportedOperationException("nested"));
+        root.addSuppressed(suppressed);
+        cause.addSuppressed(new ArithmeticException("cause suppressed"));
+
+        StackTraceUtils.init(Collections.emptyList(), 0);
+        String stackTrace = StackTraceUtils.getStackTrace(root);
+        assertEquals(printStackTrace(root), stackTrace);
+        assertTrue(stackTrace.contains("\tSuppressed: java.lang.IllegalStateException: close failed\n"));
+        assertTrue(stackTrace.contains("\t\tSuppressed: java.lang.UnsupportedOperationException: nested\n"));
+        assertTrue(stackTrace.contains("Caused by: java.lang.IllegalArgumentException: cause\n"));
+    }
+
+    @Test
+    void circularCause() {
+        Exception first = new IllegalStateException("first");
+        Exception second = new IllegalArgumentException("second", first);
+        first.initCause(second);
+
+        StackTraceUtils.init(Collections.emptyList(), 0);
+        assertEquals(printStackTrace(first), StackTraceUtils.getStackTrace(first));
+    }
+
+    @Test
+    void causeDepthLimited() {
+        Throwable throwable = new IllegalStateException("0");
+        for (int i = 1; i < 20; i++) {
+            throwable = new IllegalStateException(String.valueOf(i), throwable);
+        }
+        String stackTrace = StackTraceUtils.getStackTrace(throwable, 0);
+        assertEquals(8, stackTrace.split("Caused by: ", -1).length - 1);
+    }
+
+    @Test
+    void maxSizeCap() {
+        Throwable throwable = deep(200);
+        String full = StackTraceUtils.getStackTrace(throwable, 0);
+        assertTrue(full.length() > 500);
+
+        String stackTrace = StackTraceUtils.getStackTrace(throwable, 500);
+        assertEquals(503, stackTrace.length());
+        assertEquals(full.substring(0, 500) + "...", stackTrace);
+    }
+
+    @Test
+    void shortTraceNotTruncated() {
+        Throwable throwable = deep(3);
+        String full = printStackTrace(throwable);
+        assertTrue(full.length() < 1024);
+
+        String stackTrace = StackTraceUtils.getStackTrace(throwable);
+        assertEquals(full, stackTrace);
+        assertFalse(stackTrace.endsWith("..."));
+        assertEquals("", StackTraceUtils.getStackTrace(null));
+    }
+}
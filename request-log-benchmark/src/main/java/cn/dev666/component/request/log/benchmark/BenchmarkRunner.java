@@ -0,0 +1,24 @@
+package cn.dev666.component.request.log.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 运行全部基准测试，默认附带 GC 分析，输出 ns/op 及 gc.alloc.rate.norm（每次操作分配的字节数）
+ *
+ * 支持 JMH 命令行参数，如 java -jar benchmarks.jar -p scene=DEV -p bodySize=1024
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(LogFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
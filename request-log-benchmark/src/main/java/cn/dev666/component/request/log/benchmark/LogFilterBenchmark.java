@@ -0,0 +1,130 @@
+package cn.dev666.component.request.log.benchmark;
+
+import cn.dev666.component.request.log.config.RequestLogAutoConfiguration;
+import cn.dev666.component.request.log.filter.LogFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按场景、请求体大小、内容类型测量 {@link LogFilter} 每次请求的开销
+ *
+ * 过滤器由自动配置创建，与实际应用的装配方式一致，baseline 为不经过过滤器的相同请求，
+ * 两者之差即为过滤器的开销，分配字节数通过 -prof gc 获取
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogFilterBenchmark {
+
+    @Param({"DEV", "ONLINE"})
+    private String scene;
+
+    @Param({"0", "1024", "65536", "4194304"})
+    private int bodySize;
+
+    @Param({"application/json", "text/plain", "application/octet-stream"})
+    private String contentType;
+
+    private AnnotationConfigWebApplicationContext context;
+
+    private LogFilter filter;
+
+    private byte[] body;
+
+    private final byte[] readBuffer = new byte[8192];
+
+    private FilterChain chain;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("dev666.request.log.scene", scene);
+        properties.put("dev666.request.log.headers", "Content-Type,User-Agent");
+        // 过滤器仅在 servlet 应用中装配
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.register(RequestLogAutoConfiguration.class);
+        context.refresh();
+        filter = context.getBean(LogFilter.class);
+
+        body = new byte[bodySize];
+        for (int i = 0; i < bodySize; i++) {
+            body[i] = (byte) ('a' + i % 26);
+        }
+        if (bodySize > 1 && contentType.startsWith("application/json")) {
+            body[0] = '"';
+            body[bodySize - 1] = '"';
+        }
+
+        // 模拟业务读取全部请求体，并原样写回响应体
+        chain = (request, response) -> {
+            try (InputStream in = request.getInputStream()) {
+                while (in.read(readBuffer) >= 0) {
+                    // 读取即可
+                }
+            }
+            response.setContentType(contentType);
+            response.getOutputStream().write(body);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse baseline() throws IOException, ServletException {
+        MockHttpServletRequest request = newRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        chain.doFilter(request, response);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse logFilter() throws IOException, ServletException {
+        MockHttpServletRequest request = newRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private MockHttpServletRequest newRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        request.setContentType(contentType);
+        request.addHeader(HttpHeaders.CONTENT_TYPE, contentType);
+        request.addHeader(HttpHeaders.USER_AGENT, "benchmark");
+        request.addHeader(HttpHeaders.ACCEPT, "*/*");
+        request.setContent(body);
+        return request;
+    }
+}
@@ -0,0 +1,25 @@
+package cn.dev666.component.request.log.benchmark;
+
+import ch.qos.logback.core.OutputStreamAppender;
+
+import java.io.OutputStream;
+
+/**
+ * 照常编码日志事件，但丢弃写出的字节，基准测试中保留格式化开销而不受磁盘、控制台影响
+ */
+public class NullOutputStreamAppender<E> extends OutputStreamAppender<E> {
+
+    @Override
+    public void start() {
+        setOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        super.start();
+    }
+}
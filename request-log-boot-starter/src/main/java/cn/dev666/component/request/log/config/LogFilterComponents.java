@@ -0,0 +1,158 @@
+package cn.dev666.component.request.log.config;
+
+import cn.dev666.component.request.log.enums.LogRequestLevel;
+import cn.dev666.component.request.log.enums.LogResponseLevel;
+import cn.dev666.component.request.log.filter.RequestIdHandler;
+import cn.dev666.component.request.log.filter.SpillStore;
+import cn.dev666.component.request.log.mask.MaskRules;
+import cn.dev666.component.request.log.metrics.AdaptiveSlowThreshold;
+import cn.dev666.component.request.log.rule.LogPolicy;
+import cn.dev666.component.request.log.rule.LogRule;
+import cn.dev666.component.request.log.rule.LogRuleMatcher;
+import cn.dev666.component.request.log.rule.LogSettings;
+import cn.dev666.component.request.log.sampling.RateSampler;
+import cn.dev666.component.request.log.sampling.Sampler;
+import cn.dev666.component.request.log.sampling.TokenBucketSampler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 根据配置创建过滤器依赖的组件，servlet 与 reactive 过滤器共用，未开启的组件返回 null
+ */
+@Slf4j
+class LogFilterComponents {
+
+    private final RequestLogProperties properties;
+
+    LogFilterComponents(RequestLogProperties properties) {
+        this.properties = properties;
+    }
+
+    LogSettings createSettings() {
+        return new LogSettings(createRuleMatcher(), properties.getSlowRequestThreshold());
+    }
+
+    LogRuleMatcher createRuleMatcher() {
+        LogRequestLevel requestLevel;
+        LogResponseLevel responseLevel;
+        switch (properties.getScene()){
+            case DEV:
+            case TEST:
+                requestLevel = LogRequestLevel.URL_BODY_SOME_HEADER;
+                responseLevel = LogResponseLevel.ALL;
+                break;
+            case ONLINE:
+                requestLevel = LogRequestLevel.URL;
+                responseLevel = LogResponseLevel.SLOW_ERROR_NOBODY;
+                break;
+            case CUSTOMER:
+                requestLevel = properties.getRequestLevel();
+                responseLevel = properties.getResponseLevel();
+                if (requestLevel == null || responseLevel == null){
+                    throw new IllegalArgumentException("当为自定义场景时，需手动指定请求、响应日志级别");
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("不支持未知的场景");
+        }
+
+        LogPolicy defaultPolicy = new LogPolicy(false, requestLevel, responseLevel, properties.getHeaders(),
+                (int) properties.getRequestOmitLength().toBytes(), (int) properties.getResponseOmitLength().toBytes());
+        List<LogRule> rules = new ArrayList<>();
+        for (RequestLogProperties.RuleProperties rule : properties.getRules()) {
+            if (!StringUtils.hasText(rule.getPattern())) {
+                throw new IllegalArgumentException("日志规则需指定路径模式");
+            }
+            LogPolicy policy = new LogPolicy(rule.isExclude(),
+                    rule.getRequestLevel() != null ? rule.getRequestLevel() : requestLevel,
+                    rule.getResponseLevel() != null ? rule.getResponseLevel() : responseLevel,
+                    rule.getHeaders() != null ? rule.getHeaders() : properties.getHeaders(),
+                    (int) (rule.getRequestOmitLength() != null ? rule.getRequestOmitLength() : properties.getRequestOmitLength()).toBytes(),
+                    (int) (rule.getResponseOmitLength() != null ? rule.getResponseOmitLength() : properties.getResponseOmitLength()).toBytes());
+            rules.add(new LogRule(rule.getPattern(), rule.isRegex(), policy));
+        }
+        return new LogRuleMatcher(defaultPolicy, rules, properties.getRuleCacheSize());
+    }
+
+    SpillStore createSpillStore() {
+        RequestLogProperties.SpillProperties spill = properties.getSpill();
+        if (!spill.isEnabled()) {
+            return null;
+        }
+        Path directory = StringUtils.hasText(spill.getDirectory()) ? Paths.get(spill.getDirectory())
+                : Paths.get(System.getProperty("java.io.tmpdir"), "request-log-spill");
+        RequestLogProperties.MaskProperties mask = properties.getMask();
+        if (!CollectionUtils.isEmpty(mask.getHeaders()) || !CollectionUtils.isEmpty(mask.getJsonPaths())
+                || !CollectionUtils.isEmpty(mask.getFormKeys())) {
+            log.warn("已开启请求体落盘，落盘目录 {} 中的请求体、响应体为原始内容，不经过脱敏", directory);
+        }
+        try {
+            return new SpillStore(directory, spill.getMaxFiles(), spill.getMaxFileSize().toBytes());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("请求体落盘目录不可用：" + directory, e);
+        }
+    }
+
+    AdaptiveSlowThreshold createAdaptiveSlowThreshold() {
+        RequestLogProperties.AdaptiveSlowProperties adaptiveSlow = properties.getAdaptiveSlow();
+        if (!adaptiveSlow.isEnabled()) {
+            return null;
+        }
+        Map<String, Duration> overrides = new LinkedHashMap<>();
+        for (RequestLogProperties.OverrideProperties override : adaptiveSlow.getOverrides()) {
+            if (!StringUtils.hasText(override.getPattern()) || override.getThreshold() == null) {
+                throw new IllegalArgumentException("慢请求固定阈值需指定路径模式及阈值");
+            }
+            overrides.putIfAbsent(override.getPattern(), override.getThreshold());
+        }
+        return new AdaptiveSlowThreshold(properties.getSlowRequestThreshold(), adaptiveSlow.getMultiple(),
+                adaptiveSlow.getMinThreshold(), adaptiveSlow.getMinSamples(), adaptiveSlow.getDecayInterval(),
+                adaptiveSlow.getMaxRoutes(), overrides, properties.getRuleCacheSize());
+    }
+
+    Sampler createSampler() {
+        RequestLogProperties.SamplingProperties sampling = properties.getSampling();
+        switch (sampling.getStrategy()){
+            case NONE:
+                return null;
+            case RATE:
+                return new RateSampler(sampling.getRate(), false);
+            case ERROR_SLOW:
+                return new RateSampler(sampling.getRate(), true);
+            case TOKEN_BUCKET:
+                return new TokenBucketSampler(sampling.getPermitsPerSecond(), sampling.getMaxTrackedUris());
+            default:
+                throw new IllegalArgumentException("不支持未知的采样策略");
+        }
+    }
+
+    MaskRules createMaskRules() {
+        RequestLogProperties.MaskProperties mask = properties.getMask();
+        if (CollectionUtils.isEmpty(mask.getHeaders()) && CollectionUtils.isEmpty(mask.getFormKeys())) {
+            return null;
+        }
+        return new MaskRules(mask.getHeaders(), mask.getFormKeys(), mask.getReplacement());
+    }
+
+    RequestIdHandler createRequestIdHandler() {
+        RequestLogProperties.RequestIdProperties requestId = properties.getRequestId();
+        if (!requestId.isEnabled()) {
+            return null;
+        }
+        if (!StringUtils.hasText(requestId.getMdcKey())) {
+            throw new IllegalArgumentException("请求编号需指定 MDC 键");
+        }
+        String header = StringUtils.hasText(requestId.getHeader()) ? requestId.getHeader() : null;
+        return new RequestIdHandler(header, requestId.getMdcKey(), requestId.isEcho());
+    }
+}
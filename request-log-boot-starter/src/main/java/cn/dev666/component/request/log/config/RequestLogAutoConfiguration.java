@@ -1,15 +1,30 @@
 package cn.dev666.component.request.log.config;
 
-import cn.dev666.component.request.log.enums.LogRequestLevel;
-import cn.dev666.component.request.log.enums.LogResponseLevel;
+import cn.dev666.component.request.log.endpoint.RequestLatencyEndpoint;
+import cn.dev666.component.request.log.endpoint.RequestLogSettingsEndpoint;
+import cn.dev666.component.request.log.filter.BufferPool;
 import cn.dev666.component.request.log.filter.LogFilter;
+import cn.dev666.component.request.log.filter.ReactiveLogFilter;
+import cn.dev666.component.request.log.mask.JsonMasker;
+import cn.dev666.component.request.log.metrics.RequestLatencyMetrics;
+import cn.dev666.component.request.log.rule.LogSettingsHolder;
+import cn.dev666.component.request.log.writer.AsyncLogWriter;
+import cn.dev666.component.request.log.writer.JsonLogRenderer;
+import cn.dev666.component.request.log.writer.LogRenderer;
+import cn.dev666.component.request.log.writer.LogWriter;
+import cn.dev666.component.request.log.writer.SyncLogWriter;
+import cn.dev666.component.request.log.writer.TextLogRenderer;
 import org.apache.commons.io.output.TeeOutputStream;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.CollectionUtils;
 
 import javax.annotation.Resource;
 
@@ -24,31 +39,126 @@ public class RequestLogAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     @ConditionalOnProperty(prefix = "dev666.request.log", value = "enabled", havingValue = "true", matchIfMissing = true)
-    public LogFilter logFilter() {
-        LogRequestLevel requestLevel;
-        LogResponseLevel responseLevel;
-        switch (properties.getScene()){
-            case DEV:
-            case TEST:
-                requestLevel = LogRequestLevel.URL_BODY_SOME_HEADER;
-                responseLevel = LogResponseLevel.ALL;
-                break;
-            case ONLINE:
-                requestLevel = LogRequestLevel.URL;
-                responseLevel = LogResponseLevel.SLOW_ERROR_NOBODY;
-                break;
-            case CUSTOMER:
-                requestLevel = properties.getRequestLevel();
-                responseLevel = properties.getResponseLevel();
-                if (requestLevel == null || responseLevel == null){
-                    throw new IllegalArgumentException("当为自定义场景时，需手动指定请求、响应日志级别");
+    public BufferPool requestLogBufferPool() {
+        long size = Math.max(properties.getRequestOmitLength().toBytes(), properties.getResponseOmitLength().toBytes());
+        return new BufferPool((int) size);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "dev666.request.log", value = "enabled", havingValue = "true", matchIfMissing = true)
+    public LogSettingsHolder requestLogSettingsHolder() {
+        return new LogSettingsHolder(new LogFilterComponents(properties).createSettings());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "dev666.request.log.metrics", value = "enabled", havingValue = "true")
+    public RequestLatencyMetrics requestLatencyMetrics() {
+        return new RequestLatencyMetrics(properties.getMetrics().getMaxRoutes());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "dev666.request.log", value = "enabled", havingValue = "true", matchIfMissing = true)
+    public LogWriter requestLogWriter(BufferPool bufferPool) {
+        LogRenderer renderer = createRenderer();
+        RequestLogProperties.AsyncProperties async = properties.getAsync();
+        if (async.isEnabled()) {
+            return new AsyncLogWriter(renderer, async.getBufferSize(), async.getOverflowPolicy(), async.getSampleRatio());
+        }
+        return new SyncLogWriter(renderer, bufferPool);
+    }
+
+    private LogRenderer createRenderer() {
+        JsonMasker jsonMasker = createJsonMasker();
+        switch (properties.getFormat()){
+            case TEXT:
+                return new TextLogRenderer(jsonMasker);
+            case JSON:
+                if (!isJacksonPresent()) {
+                    throw new IllegalArgumentException("JSON 格式日志需引入 jackson-core");
                 }
-                break;
+                return new JsonLogRenderer(jsonMasker);
             default:
-                throw new IllegalArgumentException("不支持未知的场景");
+                throw new IllegalArgumentException("不支持未知的日志格式");
+        }
+    }
+
+    private JsonMasker createJsonMasker() {
+        RequestLogProperties.MaskProperties mask = properties.getMask();
+        if (CollectionUtils.isEmpty(mask.getJsonPaths())) {
+            return null;
+        }
+        if (!isJacksonPresent()) {
+            throw new IllegalArgumentException("JSON 脱敏需引入 jackson-core");
+        }
+        return new JsonMasker(mask.getJsonPaths(), mask.getReplacement());
+    }
+
+    private boolean isJacksonPresent() {
+        return ClassUtils.isPresent("com.fasterxml.jackson.core.JsonGenerator", getClass().getClassLoader());
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnClass(name = "javax.servlet.Filter")
+    static class ServletLogFilterConfiguration {
+
+        @Resource
+        RequestLogProperties properties;
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(prefix = "dev666.request.log", value = "enabled", havingValue = "true", matchIfMissing = true)
+        public LogFilter logFilter(LogSettingsHolder settingsHolder, BufferPool bufferPool, LogWriter logWriter,
+                                   ObjectProvider<RequestLatencyMetrics> latencyMetrics) {
+            LogFilterComponents components = new LogFilterComponents(properties);
+            return new LogFilter(properties.getOrder(), settingsHolder, bufferPool, logWriter,
+                    properties.getRequestBodyMode(), components.createSampler(), latencyMetrics.getIfAvailable(),
+                    components.createAdaptiveSlowThreshold(), components.createSpillStore(), components.createMaskRules(),
+                    components.createRequestIdHandler());
+        }
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    @ConditionalOnClass(name = "org.springframework.web.server.WebFilter")
+    static class ReactiveLogFilterConfiguration {
+
+        @Resource
+        RequestLogProperties properties;
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(prefix = "dev666.request.log", value = "enabled", havingValue = "true", matchIfMissing = true)
+        public ReactiveLogFilter reactiveLogFilter(LogSettingsHolder settingsHolder, BufferPool bufferPool,
+                                                   LogWriter logWriter, ObjectProvider<RequestLatencyMetrics> latencyMetrics) {
+            LogFilterComponents components = new LogFilterComponents(properties);
+            return new ReactiveLogFilter(properties.getOrder(), settingsHolder, bufferPool, logWriter, components.createSampler(),
+                    latencyMetrics.getIfAvailable(), components.createAdaptiveSlowThreshold(),
+                    components.createMaskRules(), components.createRequestIdHandler());
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    static class RequestLogEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(prefix = "dev666.request.log.metrics", value = "enabled", havingValue = "true")
+        public RequestLatencyEndpoint requestLatencyEndpoint(RequestLatencyMetrics latencyMetrics) {
+            return new RequestLatencyEndpoint(latencyMetrics);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(prefix = "dev666.request.log", value = "enabled", havingValue = "true", matchIfMissing = true)
+        public RequestLogSettingsEndpoint requestLogSettingsEndpoint(LogSettingsHolder settingsHolder,
+                                                                     RequestLogProperties properties, BufferPool bufferPool) {
+            return new RequestLogSettingsEndpoint(settingsHolder, properties,
+                    overrides -> new LogFilterComponents(overrides).createSettings(), bufferPool);
         }
-        return new LogFilter(properties.getOrder(), requestLevel, responseLevel,
-                properties.getRequestOmitLength(), properties.getResponseOmitLength(),
-                properties.getHeaders(), properties.getSlowRequestThreshold());
     }
 }
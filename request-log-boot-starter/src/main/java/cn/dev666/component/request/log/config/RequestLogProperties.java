@@ -1,8 +1,12 @@
 package cn.dev666.component.request.log.config;
 
+import cn.dev666.component.request.log.enums.LogFormat;
 import cn.dev666.component.request.log.enums.LogRequestLevel;
 import cn.dev666.component.request.log.enums.LogResponseLevel;
 import cn.dev666.component.request.log.enums.LogScene;
+import cn.dev666.component.request.log.enums.OverflowPolicy;
+import cn.dev666.component.request.log.enums.RequestBodyMode;
+import cn.dev666.component.request.log.enums.SamplingStrategy;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.convert.DataSizeUnit;
@@ -12,6 +16,8 @@ import org.springframework.util.unit.DataUnit;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 @Data
@@ -29,6 +35,10 @@ public class RequestLogProperties {
      * 日志场景，默认开发场景，当为 CUSTOMER 时，需手动指定请求、响应日志级别
      */
     private LogScene scene = LogScene.DEV;
+    /**
+     * 日志输出格式，默认多行文本，JSON 格式需引入 jackson-core
+     */
+    private LogFormat format = LogFormat.TEXT;
     /**
      * 请求日志级别，默认 根据日志场景决定
      */
@@ -38,6 +48,10 @@ public class RequestLogProperties {
      */
     @DataSizeUnit(DataUnit.KILOBYTES)
     private DataSize requestOmitLength = DataSize.ofKilobytes(4);
+    /**
+     * 请求体读取方式，默认预读全部请求体，LAZY 时业务读取请求体过程中截取，处理结束后输出请求日志
+     */
+    private RequestBodyMode requestBodyMode = RequestBodyMode.EAGER;
     /**
      * 输出的部分请求头，默认不输出
      */
@@ -56,4 +70,243 @@ public class RequestLogProperties {
      */
     @DurationUnit(ChronoUnit.SECONDS)
     private Duration slowRequestThreshold = Duration.ofSeconds(3);
+    /**
+     * 按路径指定的日志规则，按配置顺序优先匹配，未配置的项使用全局配置
+     */
+    private List<RuleProperties> rules = new ArrayList<>();
+    /**
+     * 路径规则及慢请求固定阈值匹配结果缓存的路径数上限，默认1024
+     */
+    private int ruleCacheSize = 1024;
+    /**
+     * 完整体内容落盘配置
+     */
+    private SpillProperties spill = new SpillProperties();
+    /**
+     * 请求编号配置
+     */
+    private RequestIdProperties requestId = new RequestIdProperties();
+    /**
+     * 敏感信息脱敏配置，默认不脱敏
+     */
+    private MaskProperties mask = new MaskProperties();
+    /**
+     * 按路由自适应判断慢请求配置，开启后慢请求阈值仅在路由样本不足时使用
+     */
+    private AdaptiveSlowProperties adaptiveSlow = new AdaptiveSlowProperties();
+    /**
+     * 采样配置，默认全部输出
+     */
+    private SamplingProperties sampling = new SamplingProperties();
+    /**
+     * 异步输出日志配置
+     */
+    private AsyncProperties async = new AsyncProperties();
+    /**
+     * 请求延迟统计配置
+     */
+    private MetricsProperties metrics = new MetricsProperties();
+
+    @Data
+    public static class RuleProperties {
+        /**
+         * 路径模式，不含 context-path，默认 Ant 风格，如 /actuator/**
+         */
+        private String pattern;
+        /**
+         * 路径模式是否为正则表达式，默认否
+         */
+        private boolean regex = false;
+        /**
+         * 是否排除，排除的路径不输出日志，也不统计延迟，默认否
+         */
+        private boolean exclude = false;
+        /**
+         * 请求日志级别，默认使用全局配置
+         */
+        private LogRequestLevel requestLevel;
+        /**
+         * 响应日志级别，默认使用全局配置
+         */
+        private LogResponseLevel responseLevel;
+        /**
+         * 输出的部分请求头，默认使用全局配置
+         */
+        private Set<String> headers;
+        /**
+         * 请求体截取长度，默认使用全局配置
+         */
+        @DataSizeUnit(DataUnit.KILOBYTES)
+        private DataSize requestOmitLength;
+        /**
+         * 响应体截取长度，默认使用全局配置
+         */
+        @DataSizeUnit(DataUnit.KILOBYTES)
+        private DataSize responseOmitLength;
+    }
+
+    @Data
+    public static class SpillProperties {
+        /**
+         * 是否将超出截取长度的完整请求体、响应体落盘，仅对 ALL 级别生效，适合开发、测试环境排查问题，默认不开启
+         *
+         * 落盘在业务线程上同步写入，会计入请求耗时。落盘的是原始内容，不经过 mask 配置的脱敏，
+         * 目录及文件在支持 POSIX 权限的系统上仅所有者可读写，同时配置脱敏时启动会输出警告
+         */
+        private boolean enabled = false;
+        /**
+         * 落盘目录，默认系统临时目录下的 request-log-spill，建议指定应用专属目录
+         */
+        private String directory;
+        /**
+         * 保留的文件数上限，超出后删除最早的文件，默认100
+         */
+        private int maxFiles = 100;
+        /**
+         * 单个文件大小上限，超出部分不再落盘，日志中标记该捕获编号内容不完整，默认64MB
+         */
+        @DataSizeUnit(DataUnit.MEGABYTES)
+        private DataSize maxFileSize = DataSize.ofMegabytes(64);
+    }
+
+    @Data
+    public static class RequestIdProperties {
+        /**
+         * 是否为请求分配编号，放入 MDC 并输出到请求、响应日志中，默认关闭
+         *
+         * 开启后日志行增加 [编号] 前缀，且会沿用 header 指定的请求头中客户端传入的编号
+         */
+        private boolean enabled = false;
+        /**
+         * 沿用上游传入编号的请求头，为空时总是生成，默认 X-Request-Id
+         */
+        private String header = "X-Request-Id";
+        /**
+         * 放入 MDC 的键，默认 requestId
+         */
+        private String mdcKey = "requestId";
+        /**
+         * 是否在响应头中回写请求编号，默认否
+         */
+        private boolean echo = false;
+    }
+
+    @Data
+    public static class MaskProperties {
+        /**
+         * 脱敏的请求头，忽略大小写，如 Authorization
+         */
+        private Set<String> headers;
+        /**
+         * 脱敏的 JSON 字段，字段名匹配任意层级，$. 开头时从根节点按层级匹配，如 password、$.user.idCard，需引入 jackson-core
+         */
+        private Set<String> jsonPaths;
+        /**
+         * 脱敏的表单参数、查询参数，忽略大小写
+         */
+        private Set<String> formKeys;
+        /**
+         * 替换内容，默认 ******
+         */
+        private String replacement = "******";
+    }
+
+    @Data
+    public static class AdaptiveSlowProperties {
+        /**
+         * 是否按路由自适应判断慢请求，默认不开启
+         */
+        private boolean enabled = false;
+        /**
+         * 耗时超过路由近期 p99 的倍数时判定为慢请求，默认2倍
+         */
+        private double multiple = 2;
+        /**
+         * 自适应阈值下限，默认100毫秒
+         */
+        @DurationUnit(ChronoUnit.MILLIS)
+        private Duration minThreshold = Duration.ofMillis(100);
+        /**
+         * 路由样本数达到此值后才使用自适应阈值，默认100
+         */
+        private int minSamples = 100;
+        /**
+         * 衰减周期，每个周期历史样本权重减半，默认1分钟
+         */
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration decayInterval = Duration.ofMinutes(1);
+        /**
+         * 跟踪的路由数上限，超出后使用全局阈值，默认500
+         */
+        private int maxRoutes = 500;
+        /**
+         * 按路径指定固定的慢请求阈值，按配置顺序优先匹配，优先于自适应阈值
+         */
+        private List<OverrideProperties> overrides = new ArrayList<>();
+    }
+
+    @Data
+    public static class OverrideProperties {
+        /**
+         * 路径模式，Ant 风格，不含 context-path，如 /batch/**
+         */
+        private String pattern;
+        /**
+         * 慢请求阈值，如 30s
+         */
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration threshold;
+    }
+
+    @Data
+    public static class SamplingProperties {
+        /**
+         * 采样策略，默认不采样
+         */
+        private SamplingStrategy strategy = SamplingStrategy.NONE;
+        /**
+         * 采样比例，RATE、ERROR_SLOW 策略下生效，默认0.1
+         */
+        private double rate = 0.1;
+        /**
+         * 每个URI每秒输出的日志条数上限，TOKEN_BUCKET 策略下生效，默认10
+         */
+        private int permitsPerSecond = 10;
+        /**
+         * 单独限流的URI数上限，达到上限时先清理已回满的令牌桶，仍无空位时其余URI共用一个令牌桶，默认1000
+         */
+        private int maxTrackedUris = 1000;
+    }
+
+    @Data
+    public static class AsyncProperties {
+        /**
+         * 是否异步输出日志，开启后请求线程只做数据快照，由单独线程格式化输出，默认不开启
+         */
+        private boolean enabled = false;
+        /**
+         * 缓冲队列容量，默认4096
+         */
+        private int bufferSize = 4096;
+        /**
+         * 缓冲队列满时的处理策略，默认丢弃
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+        /**
+         * 采样策略下，普通日志每 N 条保留 1 条，默认10
+         */
+        private int sampleRatio = 10;
+    }
+
+    @Data
+    public static class MetricsProperties {
+        /**
+         * 是否按路由统计请求延迟，默认不开启
+         */
+        private boolean enabled = false;
+        /**
+         * 统计的路由数上限，超出后记入 [other]，默认500
+         */
+        private int maxRoutes = 500;
+    }
 }
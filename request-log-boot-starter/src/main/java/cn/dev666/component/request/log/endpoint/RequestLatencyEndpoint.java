@@ -0,0 +1,32 @@
+package cn.dev666.component.request.log.endpoint;
+
+import cn.dev666.component.request.log.metrics.LatencySnapshot;
+import cn.dev666.component.request.log.metrics.RequestLatencyMetrics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+/**
+ * 按路由输出请求延迟统计，/actuator/requestlatency
+ */
+@Endpoint(id = "requestlatency")
+public class RequestLatencyEndpoint {
+
+    private final RequestLatencyMetrics metrics;
+
+    public RequestLatencyEndpoint(RequestLatencyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @ReadOperation
+    public List<LatencySnapshot> latency() {
+        return metrics.snapshot();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        metrics.reset();
+    }
+}
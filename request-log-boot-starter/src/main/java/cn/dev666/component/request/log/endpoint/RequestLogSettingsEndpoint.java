@@ -0,0 +1,142 @@
+package cn.dev666.component.request.log.endpoint;
+
+import cn.dev666.component.request.log.config.RequestLogProperties;
+import cn.dev666.component.request.log.enums.LogRequestLevel;
+import cn.dev666.component.request.log.enums.LogResponseLevel;
+import cn.dev666.component.request.log.enums.LogScene;
+import cn.dev666.component.request.log.filter.BufferPool;
+import cn.dev666.component.request.log.rule.LogPolicy;
+import cn.dev666.component.request.log.rule.LogSettings;
+import cn.dev666.component.request.log.rule.LogSettingsHolder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 运行时调整请求日志配置，/actuator/requestlog
+ *
+ * 每次调整均在启动配置的基础上覆盖指定项，预先生成完整的配置快照后整体替换，可指定生效时长，到期后自动恢复
+ *
+ * 读取时一并输出缓冲池的命中统计
+ */
+@Slf4j
+@Endpoint(id = "requestlog")
+public class RequestLogSettingsEndpoint {
+
+    private final LogSettingsHolder settingsHolder;
+
+    private final RequestLogProperties properties;
+
+    private final Function<RequestLogProperties, LogSettings> settingsFactory;
+
+    private final BufferPool bufferPool;
+
+    /**
+     * @param settingsHolder    过滤器使用的配置
+     * @param properties        启动配置
+     * @param settingsFactory   根据配置生成快照
+     * @param bufferPool        过滤器使用的缓冲池
+     */
+    public RequestLogSettingsEndpoint(LogSettingsHolder settingsHolder, RequestLogProperties properties,
+                                      Function<RequestLogProperties, LogSettings> settingsFactory, BufferPool bufferPool) {
+        this.settingsHolder = settingsHolder;
+        this.properties = properties;
+        this.settingsFactory = settingsFactory;
+        this.bufferPool = bufferPool;
+    }
+
+    @ReadOperation
+    public Map<String, Object> settings() {
+        Map<String, Object> result = describe(settingsHolder.get(System.currentTimeMillis()));
+        long hits = bufferPool.getHits();
+        long misses = bufferPool.getMisses();
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("hits", hits);
+        pool.put("misses", misses);
+        pool.put("hitRate", hits + misses > 0 ? (double) hits / (hits + misses) : null);
+        result.put("bufferPool", pool);
+        return result;
+    }
+
+    /**
+     * 指定请求或响应日志级别时按自定义场景处理，未指定的一项沿用启动配置
+     *
+     * @param headers   输出的请求头，多个以逗号分隔
+     * @param ttl       生效时长，如 10m，为空时一直生效
+     */
+    @WriteOperation
+    public Map<String, Object> configure(@Nullable LogScene scene, @Nullable LogRequestLevel requestLevel,
+                                         @Nullable LogResponseLevel responseLevel, @Nullable String headers,
+                                         @Nullable DataSize requestOmitLength, @Nullable DataSize responseOmitLength,
+                                         @Nullable Duration slowRequestThreshold, @Nullable Duration ttl) {
+        RequestLogProperties overrides = new RequestLogProperties();
+        BeanUtils.copyProperties(properties, overrides);
+        if (scene != null) {
+            overrides.setScene(scene);
+        }
+        if (requestLevel != null || responseLevel != null) {
+            LogPolicy baseline = settingsHolder.getBaseline().getRuleMatcher().getDefaultPolicy();
+            overrides.setScene(LogScene.CUSTOMER);
+            overrides.setRequestLevel(requestLevel != null ? requestLevel : baseline.getRequestLevel());
+            overrides.setResponseLevel(responseLevel != null ? responseLevel : baseline.getResponseLevel());
+        }
+        if (headers != null) {
+            overrides.setHeaders(StringUtils.commaDelimitedListToSet(headers));
+        }
+        if (requestOmitLength != null) {
+            overrides.setRequestOmitLength(requestOmitLength);
+        }
+        if (responseOmitLength != null) {
+            overrides.setResponseOmitLength(responseOmitLength);
+        }
+        if (slowRequestThreshold != null) {
+            overrides.setSlowRequestThreshold(slowRequestThreshold);
+        }
+
+        try {
+            settingsHolder.apply(settingsFactory.apply(overrides), ttl);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        LogSettings settings = settingsHolder.get(System.currentTimeMillis());
+        log.warn("请求日志配置已调整为 {}", describe(settings));
+        return describe(settings);
+    }
+
+    /**
+     * 恢复启动时的配置
+     */
+    @DeleteOperation
+    public Map<String, Object> reset() {
+        settingsHolder.reset();
+        log.warn("请求日志配置已恢复为启动配置");
+        return describe(settingsHolder.getBaseline());
+    }
+
+    private Map<String, Object> describe(LogSettings settings) {
+        LogPolicy policy = settings.getRuleMatcher().getDefaultPolicy();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requestLevel", policy.getRequestLevel());
+        result.put("responseLevel", policy.getResponseLevel());
+        result.put("headers", new LinkedHashSet<>(policy.getHeaders()));
+        result.put("requestOmitLength", policy.getRequestOmitLength());
+        result.put("responseOmitLength", policy.getResponseOmitLength());
+        result.put("slowRequestThreshold", settings.getSlowRequestThresholdMillis());
+        result.put("expiresAt", settings.getExpiresAt() != 0 ? Instant.ofEpochMilli(settings.getExpiresAt()).toString() : null);
+        return result;
+    }
+}
@@ -0,0 +1,40 @@
+package cn.dev666.component.request.log.enums;
+
+public enum BodyEncoding {
+    /**
+     * 未压缩
+     */
+    IDENTITY,
+    /**
+     * gzip 压缩
+     */
+    GZIP,
+    /**
+     * deflate 压缩，兼容 zlib 格式及裸 deflate 格式
+     */
+    DEFLATE,
+    /**
+     * 不支持解压的编码，如 br 或多重编码，按二进制处理
+     */
+    UNSUPPORTED;
+
+    /**
+     * 根据 Content-Encoding 请求头、响应头解析
+     */
+    public static BodyEncoding of(String contentEncoding) {
+        if (contentEncoding == null) {
+            return IDENTITY;
+        }
+        String encoding = contentEncoding.trim();
+        if (encoding.isEmpty() || "identity".equalsIgnoreCase(encoding)) {
+            return IDENTITY;
+        }
+        if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)) {
+            return GZIP;
+        }
+        if ("deflate".equalsIgnoreCase(encoding)) {
+            return DEFLATE;
+        }
+        return UNSUPPORTED;
+    }
+}
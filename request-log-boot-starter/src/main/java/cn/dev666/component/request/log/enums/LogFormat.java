@@ -0,0 +1,12 @@
+package cn.dev666.component.request.log.enums;
+
+public enum LogFormat {
+    /**
+     * 多行文本，便于人工阅读
+     */
+    TEXT,
+    /**
+     * 单行 JSON，便于日志采集端解析
+     */
+    JSON
+}
@@ -0,0 +1,16 @@
+package cn.dev666.component.request.log.enums;
+
+public enum OverflowPolicy {
+    /**
+     * 缓冲队列满时，丢弃新日志
+     */
+    DROP,
+    /**
+     * 缓冲队列使用超过 3/4 时，普通日志按比例采样，慢请求、错误日志不采样，队列满时丢弃
+     */
+    SAMPLE,
+    /**
+     * 缓冲队列满时，阻塞请求线程直到有空位
+     */
+    BLOCK
+}
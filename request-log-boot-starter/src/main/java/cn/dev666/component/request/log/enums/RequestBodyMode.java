@@ -0,0 +1,12 @@
+package cn.dev666.component.request.log.enums;
+
+public enum RequestBodyMode {
+    /**
+     * 进入业务处理前读取全部请求体，先输出请求日志
+     */
+    EAGER,
+    /**
+     * 业务读取请求体时同步截取前部分，处理结束后输出请求日志，不预读、不缓存完整请求体
+     */
+    LAZY
+}
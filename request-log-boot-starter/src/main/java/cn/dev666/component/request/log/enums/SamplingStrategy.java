@@ -0,0 +1,20 @@
+package cn.dev666.component.request.log.enums;
+
+public enum SamplingStrategy {
+    /**
+     * 不采样，全部输出
+     */
+    NONE,
+    /**
+     * 按固定比例随机采样
+     */
+    RATE,
+    /**
+     * 按URI令牌桶限流，每个URI每秒最多输出固定条数
+     */
+    TOKEN_BUCKET,
+    /**
+     * 错误、慢请求始终输出，其余按固定比例随机采样
+     */
+    ERROR_SLOW
+}
@@ -0,0 +1,126 @@
+package cn.dev666.component.request.log.filter;
+
+import cn.dev666.component.request.log.enums.BodyEncoding;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 缓存请求体原始字节，供日志输出后重放给应用，缓冲区从 {@link BufferPool} 借出
+ */
+public class BodyCachingRequestWrapper extends HttpServletRequestWrapper {
+
+    private final BufferPool pool;
+
+    private byte[] body;
+
+    private int length;
+
+    private CaptureOutputStream inflated;
+
+    BodyCachingRequestWrapper(HttpServletRequest request, BufferPool pool) {
+        super(request);
+        this.pool = pool;
+    }
+
+    /**
+     * 一次性读取全部请求体原始字节
+     */
+    void readBody() throws IOException {
+        if (body != null) {
+            return;
+        }
+        long contentLength = getRequest().getContentLengthLong();
+        byte[] buf = pool.borrowBytes(contentLength > 0 && contentLength < Integer.MAX_VALUE ? (int) contentLength : 0);
+        int count = 0;
+        InputStream in = getRequest().getInputStream();
+        while (true) {
+            if (count == buf.length) {
+                // 缓冲区恰好读满时，先探测是否还有数据，避免为读取结束标志扩容
+                int b = in.read();
+                if (b < 0) {
+                    break;
+                }
+                byte[] newBuf = new byte[Math.max(buf.length << 1, 256)];
+                System.arraycopy(buf, 0, newBuf, 0, count);
+                pool.releaseBytes(buf);
+                buf = newBuf;
+                buf[count++] = (byte) b;
+            }
+            int n = in.read(buf, count, buf.length - count);
+            if (n < 0) {
+                break;
+            }
+            count += n;
+        }
+        this.body = buf;
+        this.length = count;
+    }
+
+    /**
+     * 按上限解压已缓存的请求体，不影响重放给应用的原始数据
+     */
+    CaptureOutputStream inflate(int limit, BodyEncoding encoding) {
+        if (inflated == null) {
+            inflated = new CaptureOutputStream(pool, limit, encoding);
+            inflated.write(body, 0, length);
+        }
+        return inflated;
+    }
+
+    int getBodyLength() {
+        return length;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (body == null) {
+            return super.getInputStream();
+        }
+        return new ByteArrayServletInputStream(this, body, length);
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (body == null) {
+            return super.getReader();
+        }
+        String encoding = getCharacterEncoding();
+        Charset charset = StandardCharsets.UTF_8;
+        if (encoding != null) {
+            try {
+                charset = Charset.forName(encoding);
+            } catch (IllegalArgumentException e) {
+                throw new UnsupportedEncodingException(encoding);
+            }
+        }
+        return new BufferedReader(new InputStreamReader(new ByteArrayServletInputStream(this, body, length), charset));
+    }
+
+    /**
+     * 归还缓冲区，请求处理结束后调用
+     */
+    void release() {
+        if (inflated != null) {
+            inflated.release();
+        }
+        byte[] buf = this.body;
+        if (buf != null) {
+            this.body = null;
+            this.length = 0;
+            pool.releaseBytes(buf);
+        }
+    }
+}
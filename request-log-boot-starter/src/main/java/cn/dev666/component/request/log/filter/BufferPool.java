@@ -0,0 +1,115 @@
+package cn.dev666.component.request.log.filter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 日志缓冲池，按线程缓存捕获请求体、响应体所用的字节数组，及拼接日志所用的 StringBuilder，
+ * 稳定运行后日志路径基本不再分配新的缓冲区。
+ *
+ * 借出的缓冲区由借出方在请求结束后归还，可在其他线程归还，归还时放入当前线程的缓存。
+ */
+public class BufferPool {
+
+    /**
+     * 每个线程最多缓存的字节数组个数，请求体、响应体各占一个，留有余量
+     */
+    private static final int MAX_CACHED_BYTES = 4;
+
+    private final int bufferSize;
+
+    private final int maxBuilderCapacity;
+
+    private final ThreadLocal<Slot> slots = ThreadLocal.withInitial(Slot::new);
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param bufferSize    池化字节数组大小，取请求、响应截取长度的较大值
+     */
+    public BufferPool(int bufferSize) {
+        this.bufferSize = Math.max(bufferSize, 0);
+        this.maxBuilderCapacity = Math.max(this.bufferSize * 2, 1024);
+    }
+
+    /**
+     * 借出不小于 minSize 的字节数组，超出池化大小时直接分配
+     */
+    public byte[] borrowBytes(int minSize) {
+        if (minSize <= bufferSize) {
+            Slot slot = slots.get();
+            if (slot.size > 0) {
+                hits.increment();
+                byte[] bytes = slot.bytes[--slot.size];
+                slot.bytes[slot.size] = null;
+                return bytes;
+            }
+        }
+        misses.increment();
+        return new byte[Math.max(minSize, bufferSize)];
+    }
+
+    /**
+     * 归还字节数组，非池化大小的数组直接丢弃
+     */
+    public void releaseBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != bufferSize) {
+            return;
+        }
+        Slot slot = slots.get();
+        if (slot.size < MAX_CACHED_BYTES) {
+            slot.bytes[slot.size++] = bytes;
+        }
+    }
+
+    public StringBuilder borrowBuilder() {
+        Slot slot = slots.get();
+        StringBuilder builder = slot.builder;
+        if (builder != null) {
+            hits.increment();
+            slot.builder = null;
+            builder.setLength(0);
+            return builder;
+        }
+        misses.increment();
+        return new StringBuilder(256);
+    }
+
+    /**
+     * 归还 StringBuilder，容量过大的直接丢弃，避免长期占用内存
+     */
+    public void releaseBuilder(StringBuilder builder) {
+        if (builder == null || builder.capacity() > maxBuilderCapacity) {
+            return;
+        }
+        Slot slot = slots.get();
+        if (slot.builder == null) {
+            slot.builder = builder;
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * 从线程缓存中借出成功的次数
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * 线程缓存为空或超出池化大小，需新分配的次数
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private static class Slot {
+        private final byte[][] bytes = new byte[MAX_CACHED_BYTES][];
+        private int size;
+        private StringBuilder builder;
+    }
+}
@@ -1,34 +1,103 @@
 package cn.dev666.component.request.log.filter;
 
+import org.springframework.lang.NonNull;
+
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
-import java.io.ByteArrayInputStream;
+import javax.servlet.http.HttpServletRequest;
 
+/**
+ * 重放已缓存的请求体，数据全部在内存中，始终可读
+ *
+ * 非阻塞读取时与容器一致，监听器回调通过 AsyncContext 在其他线程上执行，不在注册监听器的线程上直接回调
+ */
 public class ByteArrayServletInputStream extends ServletInputStream {
 
-    private ByteArrayInputStream byteArrayInputStream;
+    private final HttpServletRequest request;
+
+    private final byte[] buf;
+
+    private final int count;
+
+    private int pos;
 
-    ByteArrayServletInputStream(ByteArrayInputStream byteArrayInputStream) {
-        this.byteArrayInputStream = byteArrayInputStream;
+    private ReadListener readListener;
+
+    ByteArrayServletInputStream(HttpServletRequest request, byte[] buf, int count) {
+        this.request = request;
+        this.buf = buf;
+        this.count = count;
     }
 
     @Override
     public int read() {
-        return byteArrayInputStream.read();
+        return pos < count ? buf[pos++] & 0xff : -1;
+    }
+
+    @Override
+    public int read(@NonNull byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= count) {
+            return -1;
+        }
+        int n = Math.min(len, count - pos);
+        System.arraycopy(buf, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = Math.max(Math.min(n, count - pos), 0);
+        pos += (int) skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return count - pos;
     }
 
     @Override
     public boolean isFinished() {
-        return false;
+        return pos >= count;
     }
 
     @Override
     public boolean isReady() {
-        return false;
+        return true;
     }
 
     @Override
     public void setReadListener(ReadListener readListener) {
+        if (readListener == null) {
+            throw new NullPointerException("readListener");
+        }
+        if (this.readListener != null) {
+            throw new IllegalStateException("ReadListener 已设置");
+        }
+        if (!request.isAsyncStarted()) {
+            throw new IllegalStateException("非阻塞读取需先开启异步处理");
+        }
+        this.readListener = readListener;
+        request.getAsyncContext().start(this::notifyListener);
+    }
 
+    /**
+     * 数据始终可读，监听器在 onDataAvailable 中即可读完，之后通知读取结束
+     */
+    private void notifyListener() {
+        try {
+            if (!isFinished()) {
+                readListener.onDataAvailable();
+            }
+            if (isFinished()) {
+                readListener.onAllDataRead();
+            }
+        } catch (Throwable e) {
+            readListener.onError(e);
+        }
     }
 }
@@ -0,0 +1,265 @@
+package cn.dev666.component.request.log.filter;
+
+import cn.dev666.component.request.log.enums.BodyEncoding;
+import cn.dev666.component.request.log.writer.LogRecord;
+import org.springframework.lang.NonNull;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+/**
+ * 有界捕获输出流，最多保留 limit 字节，超出部分只计数不保留
+ *
+ * 压缩的数据边写入边解压，保留解压后的前 limit 字节，原始数据不做任何修改
+ */
+public class CaptureOutputStream extends OutputStream {
+
+    /**
+     * 从非堆内缓冲区复制数据时的分段大小
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    private final BufferPool pool;
+
+    private final int limit;
+
+    /**
+     * 写入首个字节时确定编码，响应头可能在业务写入前才设置
+     */
+    private final Supplier<BodyEncoding> encodingSupplier;
+
+    private BodyEncoding encoding;
+
+    private StreamInflater inflater;
+
+    private byte[] single;
+
+    /**
+     * 超出上限的数据落盘，仅未压缩的数据落盘
+     */
+    private SpillFile spill;
+
+    private byte[] buf;
+
+    private int count;
+
+    private long total;
+
+    CaptureOutputStream(BufferPool pool, int limit) {
+        this(pool, limit, BodyEncoding.IDENTITY);
+    }
+
+    CaptureOutputStream(BufferPool pool, int limit, BodyEncoding encoding) {
+        this(pool, limit, () -> encoding);
+    }
+
+    CaptureOutputStream(BufferPool pool, int limit, Supplier<BodyEncoding> encodingSupplier) {
+        this.pool = pool;
+        this.limit = Math.max(limit, 0);
+        this.encodingSupplier = encodingSupplier;
+        this.buf = pool.borrowBytes(this.limit);
+    }
+
+    @Override
+    public void write(int b) {
+        if (encoding == null) {
+            resolveEncoding();
+        }
+        if (inflater != null || (spill != null && count == limit)) {
+            if (single == null) {
+                single = new byte[1];
+            }
+            single[0] = (byte) b;
+            write(single, 0, 1);
+            return;
+        }
+        byte[] target = this.buf;
+        if (target != null && count < limit && encoding == BodyEncoding.IDENTITY) {
+            target[count++] = (byte) b;
+        }
+        total++;
+    }
+
+    @Override
+    public void write(@NonNull byte[] b, int off, int len) {
+        if (len <= 0) {
+            return;
+        }
+        if (encoding == null) {
+            resolveEncoding();
+        }
+        total += len;
+        // 只读取一次，丢弃后迟到的数据不会写入其他请求复用的缓冲区
+        byte[] target = this.buf;
+        if (target == null) {
+            return;
+        }
+        if (inflater != null) {
+            count += inflater.inflate(b, off, len, target, count, limit);
+            return;
+        }
+        // 不支持解压的编码不保留数据
+        int retain = encoding == BodyEncoding.IDENTITY ? Math.min(len, limit - count) : 0;
+        if (retain > 0) {
+            System.arraycopy(b, off, target, count, retain);
+            count += retain;
+        }
+        if (spill != null && retain < len && encoding == BodyEncoding.IDENTITY) {
+            // 首次超出上限时此前写入的数据均已保留，先写入保留部分，保证落盘内容完整
+            if (total - len == count - retain) {
+                spill.write(target, 0, count);
+            }
+            spill.write(b, off + retain, len - retain);
+        }
+    }
+
+    /**
+     * 写入缓冲区中的剩余数据，读取位置随之移动，调用方需传入独立的视图
+     *
+     * 只需保留前 limit 字节时直接复制到保留区，超出部分只计数，无需逐段复制
+     */
+    void write(ByteBuffer data) {
+        int len = data.remaining();
+        if (len <= 0) {
+            return;
+        }
+        if (data.hasArray()) {
+            write(data.array(), data.arrayOffset() + data.position(), len);
+            return;
+        }
+        if (encoding == null) {
+            resolveEncoding();
+        }
+        if (inflater == null && spill == null) {
+            byte[] target = this.buf;
+            int retain = target != null && encoding == BodyEncoding.IDENTITY ? Math.min(len, limit - count) : 0;
+            if (retain > 0) {
+                data.get(target, count, retain);
+                count += retain;
+            }
+            total += len;
+            return;
+        }
+        byte[] chunk = new byte[Math.min(len, CHUNK_SIZE)];
+        while (data.hasRemaining()) {
+            int n = Math.min(data.remaining(), chunk.length);
+            data.get(chunk, 0, n);
+            write(chunk, 0, n);
+        }
+    }
+
+    /**
+     * 将截取的体内容写入日志记录，压缩时为解压后的内容，无法解压时按二进制处理
+     */
+    void applyTo(LogRecord record) {
+        record.setEncoding(encoding == null ? BodyEncoding.IDENTITY : encoding);
+        record.setInflatedTotal(getInflatedSize());
+        record.setCaptureId(getCaptureId());
+        record.setCaptureTruncated(isCaptureTruncated());
+        if (!isUndecodable()) {
+            record.setBody(buf);
+            record.setBodyLength(count);
+        }
+    }
+
+    /**
+     * 超出上限的数据写入落盘文件，需在写入数据前设置
+     */
+    void spillTo(SpillFile spill) {
+        this.spill = spill;
+    }
+
+    /**
+     * 完整内容已落盘时返回捕获编号，否则返回 null
+     */
+    public String getCaptureId() {
+        return spill != null && spill.isWritten() ? spill.getCaptureId() : null;
+    }
+
+    /**
+     * 落盘文件是否因超出大小上限只保存了部分内容
+     */
+    public boolean isCaptureTruncated() {
+        return getCaptureId() != null && spill.isTruncated();
+    }
+
+    private void resolveEncoding() {
+        BodyEncoding resolved = encodingSupplier.get();
+        encoding = resolved == null ? BodyEncoding.IDENTITY : resolved;
+        if (encoding == BodyEncoding.GZIP || encoding == BodyEncoding.DEFLATE) {
+            inflater = new StreamInflater(encoding == BodyEncoding.GZIP);
+        }
+    }
+
+    /**
+     * 写入的总字节数，包含未保留部分，压缩时为压缩后的字节数
+     */
+    public long size() {
+        return total;
+    }
+
+    /**
+     * 是否有字节因超出上限未保留，压缩时只要未完整解压即视为截断
+     */
+    public boolean isTruncated() {
+        if (inflater != null) {
+            return !inflater.isFinished();
+        }
+        return total > count;
+    }
+
+    /**
+     * 写入数据的编码，尚未写入时为空
+     */
+    public BodyEncoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * 解压后的总字节数，未压缩或未完整解压时返回 -1
+     */
+    public long getInflatedSize() {
+        return inflater != null && inflater.isFinished() ? count : -1;
+    }
+
+    /**
+     * 压缩数据格式错误，或编码不支持解压，保留的数据不可用
+     */
+    public boolean isUndecodable() {
+        return encoding == BodyEncoding.UNSUPPORTED || (inflater != null && inflater.isFailed());
+    }
+
+    byte[] getBuffer() {
+        return buf;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * 丢弃缓冲区而不归还，用于上游可能仍在写入的场景，解压器由 GC 回收，避免与迟到的写入并发释放
+     */
+    void discard() {
+        this.buf = null;
+    }
+
+    /**
+     * 归还缓冲区，之后不可再使用
+     */
+    void release() {
+        if (inflater != null) {
+            inflater.end();
+        }
+        if (spill != null) {
+            spill.close();
+        }
+        byte[] bytes = this.buf;
+        if (bytes != null) {
+            this.buf = null;
+            this.count = 0;
+            pool.releaseBytes(bytes);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package cn.dev666.component.request.log.filter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+
+/**
+ * 业务写入响应体时，同步写入捕获流
+ */
+public class CaptureResponseWrapper extends HttpServletResponseWrapper {
+
+    private final CaptureOutputStream capture;
+
+    private ServletOutputStream outputStream;
+
+    CaptureResponseWrapper(HttpServletResponse response, CaptureOutputStream capture) {
+        super(response);
+        this.capture = capture;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new TeeServletOutputStream(super.getOutputStream(), capture);
+        }
+        return outputStream;
+    }
+}
@@ -0,0 +1,80 @@
+package cn.dev666.component.request.log.filter;
+
+import cn.dev666.component.request.log.rule.LogPolicy;
+import cn.dev666.component.request.log.writer.LogRecord;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 单次请求的日志状态，异步请求时在 {@link javax.servlet.AsyncListener#onComplete} 中完成输出
+ */
+class LogExchange {
+
+    final long requestTime;
+
+    /**
+     * 该请求路径生效的日志配置
+     */
+    LogPolicy policy;
+
+    /**
+     * 请求开始时生效的慢请求阈值
+     */
+    long slowRequestThresholdMillis;
+
+    /**
+     * 请求编号，未开启时为空
+     */
+    String requestId;
+
+    HttpServletRequest request;
+
+    HttpServletResponse response;
+
+    LogRecord requestRecord;
+
+    /**
+     * 请求日志是否延迟到处理结束后输出
+     */
+    boolean requestDeferred;
+
+    CaptureOutputStream os;
+
+    boolean logBody;
+
+    /**
+     * 完整体内容落盘时的捕获编号
+     */
+    String captureId;
+
+    /**
+     * 是否被采中，未采中时只输出错误、慢请求的响应日志
+     */
+    boolean sampled = true;
+
+    /**
+     * 是否输出日志，未采中且不输出错误、慢请求时只统计延迟
+     */
+    boolean logging = true;
+
+    LogExchange(long requestTime, HttpServletRequest request, HttpServletResponse response) {
+        this.requestTime = requestTime;
+        this.request = request;
+        this.response = response;
+    }
+
+    /**
+     * 归还借出的缓冲区
+     */
+    void release() {
+        if (os != null) {
+            os.release();
+        }
+        if (request instanceof BodyCachingRequestWrapper) {
+            ((BodyCachingRequestWrapper) request).release();
+        }else if (request instanceof TeeRequestWrapper) {
+            ((TeeRequestWrapper) request).release();
+        }
+    }
+}
@@ -1,74 +1,86 @@
 package cn.dev666.component.request.log.filter;
 
+import cn.dev666.component.request.log.enums.BodyEncoding;
 import cn.dev666.component.request.log.enums.LogRequestLevel;
 import cn.dev666.component.request.log.enums.LogResponseLevel;
+import cn.dev666.component.request.log.enums.RequestBodyMode;
+import cn.dev666.component.request.log.mask.MaskRules;
+import cn.dev666.component.request.log.metrics.AdaptiveSlowThreshold;
+import cn.dev666.component.request.log.metrics.RequestLatencyMetrics;
+import cn.dev666.component.request.log.rule.LogPolicy;
+import cn.dev666.component.request.log.rule.LogSettings;
+import cn.dev666.component.request.log.rule.LogSettingsHolder;
+import cn.dev666.component.request.log.sampling.Sampler;
+import cn.dev666.component.request.log.writer.LogRecord;
+import cn.dev666.component.request.log.writer.LogWriter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.IOUtils;
+import org.slf4j.MDC;
+import org.slf4j.event.Level;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.lang.NonNull;
 import org.springframework.util.StringUtils;
-import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.multipart.MultipartHttpServletRequest;
-import org.springframework.web.multipart.MultipartResolver;
-import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.HandlerMapping;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
-import javax.servlet.ServletInputStream;
-import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpServletResponseWrapper;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import javax.servlet.http.Part;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
 import java.util.*;
-import java.util.zip.GZIPInputStream;
 
 @Slf4j
 public class LogFilter extends OncePerRequestFilter implements Ordered {
 
-	private final int requestOmitLength;
-
 	private final int order;
 
-	private final int responseOmitLength;
+	/**
+	 * 当前生效的日志配置，可在运行时整体替换
+	 */
+	private final LogSettingsHolder settingsHolder;
+
+	private final BufferPool bufferPool;
+
+	private final LogWriter logWriter;
+
+	private final RequestBodyMode requestBodyMode;
 
-    private LogRequestLevel requestLevel;
+	private final Sampler sampler;
 
-	private LogResponseLevel responseLevel;
+	private final RequestLatencyMetrics latencyMetrics;
 
-    private Set<String> headers;
+	private final AdaptiveSlowThreshold adaptiveSlowThreshold;
 
-	private long slowRequestThresholdMillis;
+	private final SpillStore spillStore;
 
-	public LogFilter(int order, LogRequestLevel requestLevel, LogResponseLevel responseLevel,
-                     DataSize requestOmitLength, DataSize responseOmitLength,
-                     Set<String> headers, Duration slowRequestThreshold) {
+	private final MaskRules maskRules;
+
+	private final RequestIdHandler requestIdHandler;
+
+	public LogFilter(int order, LogSettingsHolder settingsHolder, BufferPool bufferPool, LogWriter logWriter,
+                     RequestBodyMode requestBodyMode, Sampler sampler, RequestLatencyMetrics latencyMetrics,
+                     AdaptiveSlowThreshold adaptiveSlowThreshold, SpillStore spillStore,
+                     MaskRules maskRules, RequestIdHandler requestIdHandler) {
 		this.order = order;
-		this.requestLevel = requestLevel;
-		this.responseLevel = responseLevel;
-		this.requestOmitLength = (int)requestOmitLength.toBytes();
-		this.responseOmitLength = (int)responseOmitLength.toBytes();
-		if (headers != null && headers.size() > 0) {
-			this.headers = new HashSet<>(headers.size());
-			for (String header : headers) {
-				this.headers.add(header.toLowerCase());
-			}
-		}else {
-			this.headers = Collections.emptySet();
-		}
-		this.slowRequestThresholdMillis = slowRequestThreshold.toMillis();
+		this.requestIdHandler = requestIdHandler;
+		this.maskRules = maskRules;
+		this.spillStore = spillStore;
+		this.adaptiveSlowThreshold = adaptiveSlowThreshold;
+		this.latencyMetrics = latencyMetrics;
+		this.sampler = sampler;
+		this.requestBodyMode = requestBodyMode;
+		this.bufferPool = bufferPool;
+		this.logWriter = logWriter;
+		this.settingsHolder = settingsHolder;
 	}
 
 	@Override
@@ -76,228 +88,431 @@ public class LogFilter extends OncePerRequestFilter implements Ordered {
 		return order;
 	}
 
+	public BufferPool getBufferPool() {
+		return bufferPool;
+	}
+
 	@Override
 	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
                                     @NonNull FilterChain filterChain) throws ServletException, IOException {
 	    long requestTime = System.currentTimeMillis();
 
-		if (!LogRequestLevel.NOTHING.equals(this.requestLevel)) {
-			StringBuilder builder = new StringBuilder();
-			request = dealRequestInfo(builder, request);
-			log.info("{}", builder.toString());
+		LogSettings settings = settingsHolder.get(requestTime);
+		LogPolicy policy = settings.getRuleMatcher().match(getPath(request));
+		if (policy.isExcluded()) {
+			filterChain.doFilter(request, response);
+			return;
 		}
 
-		if (LogResponseLevel.NOTHING.equals(this.responseLevel)){
-			filterChain.doFilter(request, response);
+		if (requestIdHandler == null) {
+			doFilterWithLog(request, response, filterChain, requestTime, settings, policy, null);
 			return;
 		}
 
-		boolean logBody = !LogResponseLevel.ERROR_NOBODY.equals(this.responseLevel) &&
-							!LogResponseLevel.SLOW_ERROR_NOBODY.equals(this.responseLevel);
-		ByteArrayOutputStream os = null;
-		if (logBody){
-			final ByteArrayOutputStream finalByteArrayOutputStream = new ByteArrayOutputStream();
-			response = new HttpServletResponseWrapper(response) {
-				@Override
-				public ServletOutputStream getOutputStream() throws IOException {
-					return new TeeServletOutputStream(super.getOutputStream(), finalByteArrayOutputStream);
-				}
-			};
-			os = finalByteArrayOutputStream;
+		// 请求编号在整个处理过程中放入 MDC，业务日志与请求、响应日志可据此关联
+		String requestId = requestIdHandler.resolve(request::getHeader);
+		String mdcKey = requestIdHandler.getMdcKey();
+		String previous = MDC.get(mdcKey);
+		MDC.put(mdcKey, requestId);
+		if (requestIdHandler.isEcho()) {
+			response.setHeader(requestIdHandler.getHeader(), requestId);
+		}
+		try {
+			doFilterWithLog(request, response, filterChain, requestTime, settings, policy, requestId);
+		} finally {
+			restoreMdc(mdcKey, previous);
 		}
+	}
 
-		filterChain.doFilter(request, response);
-		long costTime = System.currentTimeMillis() - requestTime;
-		HttpStatus httpStatus = HttpStatus.valueOf(response.getStatus());
-		String responseInfo = dealResponseInfo(httpStatus, logBody, request, response, costTime, os);
+	private static void restoreMdc(String mdcKey, String previous) {
+		if (previous != null) {
+			MDC.put(mdcKey, previous);
+		}else {
+			MDC.remove(mdcKey);
+		}
+	}
 
-		if (httpStatus.isError()) {
-            log.error("{}", responseInfo);
-        }else {
-			if (costTime > slowRequestThresholdMillis && (
-					LogResponseLevel.ALL.equals(this.responseLevel) ||
-					LogResponseLevel.SLOW_ERROR.equals(this.responseLevel) ||
-							LogResponseLevel.SLOW_ERROR_NOBODY.equals(this.responseLevel))){
+	private void doFilterWithLog(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+								 long requestTime, LogSettings settings, LogPolicy policy, String requestId)
+			throws ServletException, IOException {
+		// 采样在包装请求、响应之前进行，未采中的请求不做任何额外处理
+		boolean sampled = sampler == null || sampler.sample(request.getRequestURI());
+		boolean logging = sampled || sampler.alwaysLogErrorSlow();
+		if (!logging && latencyMetrics == null) {
+			filterChain.doFilter(request, response);
+			return;
+		}
 
-				log.warn("{}", responseInfo);
+	    LogExchange exchange = new LogExchange(requestTime, request, response);
+		exchange.policy = policy;
+		exchange.slowRequestThresholdMillis = settings.getSlowRequestThresholdMillis();
+		exchange.requestId = requestId;
+		exchange.sampled = sampled;
+		exchange.logging = logging;
 
-			}else if (LogResponseLevel.ALL.equals(this.responseLevel)){
+		boolean async = false;
+		boolean completed = false;
+		try {
+			if (sampled && !LogRequestLevel.NOTHING.equals(policy.getRequestLevel())) {
+				LogRecord requestRecord = new LogRecord(true);
+				requestRecord.setRequestId(requestId);
+				exchange.request = dealRequestInfo(exchange, requestRecord, request, policy);
+				exchange.requestRecord = requestRecord;
+				// 延迟截取请求体、读取文件表单时，处理结束后再输出请求日志
+				if (!exchange.requestDeferred) {
+					logWriter.write(requestRecord);
+				}
+			}
 
-				log.info("{}", responseInfo);
+			LogResponseLevel responseLevel = policy.getResponseLevel();
+			exchange.logBody = sampled && !LogResponseLevel.ERROR_NOBODY.equals(responseLevel) &&
+								!LogResponseLevel.SLOW_ERROR_NOBODY.equals(responseLevel);
+			if (!LogResponseLevel.NOTHING.equals(responseLevel) && exchange.logBody){
+				HttpServletResponse original = response;
+				exchange.os = new CaptureOutputStream(bufferPool, policy.getResponseOmitLength(),
+						() -> BodyEncoding.of(original.getHeader(HttpHeaders.CONTENT_ENCODING)));
+				if (spillStore != null && LogResponseLevel.ALL.equals(responseLevel)) {
+					exchange.os.spillTo(createSpill(exchange, "response"));
+				}
+				exchange.response = new CaptureResponseWrapper(response, exchange.os);
+			}
+
+			filterChain.doFilter(exchange.request, exchange.response);
+			completed = true;
 
+			// 异步请求在异步处理完成时输出日志
+			if (exchange.request.isAsyncStarted()) {
+				exchange.request.getAsyncContext().addListener(new LogAsyncListener(exchange));
+				async = true;
 			}
-        }
+		} finally {
+			if (!async) {
+				complete(exchange, completed);
+			}
+		}
 	}
 
-	private String dealResponseInfo(HttpStatus httpStatus, boolean logBody, HttpServletRequest request, HttpServletResponse response, long costTime, ByteArrayOutputStream os) {
-		StringBuilder builder = new StringBuilder();
-		builder.append(request.getMethod()).append(" ").append(request.getRequestURI()).append(", ")
-				.append(httpStatus.value()).append(" ").append(httpStatus.getReasonPhrase()).append(", ")
-				.append(costTime).append(" ms");
-		if (logBody) {
-			String responseBody = "";
-			// json xml 输出响应体
-			String contentType = response.getHeader(HttpHeaders.CONTENT_TYPE);
-			if (contentType != null && (contentType.startsWith(MediaType.APPLICATION_JSON_VALUE) || contentType.startsWith(MediaType.APPLICATION_XML_VALUE))) {
-				responseBody = os.toString();
+	/**
+	 * 输出延迟的请求日志及响应日志，并归还缓冲区
+	 *
+	 * @param logResponse	业务是否正常结束，抛出异常时不输出响应日志
+	 */
+	private void complete(LogExchange exchange, boolean logResponse) {
+		try {
+			long now = System.currentTimeMillis();
+			long costTime = now - exchange.requestTime;
+			String pattern = null;
+			if (latencyMetrics != null || adaptiveSlowThreshold != null) {
+				Object attribute = exchange.request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+				pattern = attribute instanceof String ? (String) attribute : null;
+			}
+			if (latencyMetrics != null) {
+				// 业务抛出异常时，最终由容器返回 500
+				int status = logResponse ? exchange.response.getStatus() : HttpStatus.INTERNAL_SERVER_ERROR.value();
+				latencyMetrics.record(pattern, exchange.request.getMethod(), status, costTime);
 			}
+			boolean slow = adaptiveSlowThreshold != null
+					? adaptiveSlowThreshold.isSlow(pattern, exchange.request.getMethod(), getPath(exchange.request), costTime, now)
+					: costTime > exchange.slowRequestThresholdMillis;
 
-			if (StringUtils.hasText(responseBody) && responseBody.length() > this.responseOmitLength){
-				responseBody = responseBody.substring(0, this.responseOmitLength) + "...(共" + responseBody.length() + "字节)";
+			if (!exchange.logging) {
+				return;
 			}
 
-			// 其他类型默认按二进制流处理
-			if (!StringUtils.hasLength(responseBody) && os.size() > 0) {
-				responseBody = "Binary data" + "(" + os.size() + " byte)";
+			if (exchange.requestDeferred) {
+				if (exchange.request instanceof TeeRequestWrapper) {
+					dealDeferredRequestBody(exchange.requestRecord, (TeeRequestWrapper) exchange.request);
+				}else if (exchange.request instanceof MultipartRequestWrapper) {
+					exchange.requestRecord.setBodyText(getFormParam((MultipartRequestWrapper) exchange.request));
+				}
+				logWriter.write(exchange.requestRecord);
 			}
 
-			if (StringUtils.hasLength(responseBody)) {
-				builder.append("\n\n").append(responseBody).append("\n");
+			LogResponseLevel responseLevel = exchange.policy.getResponseLevel();
+			if (!logResponse || LogResponseLevel.NOTHING.equals(responseLevel)){
+				return;
 			}
-		}
 
-		return builder.toString();
+			HttpStatus httpStatus = HttpStatus.valueOf(exchange.response.getStatus());
+
+			Level level = null;
+			if (httpStatus.isError()) {
+				level = Level.ERROR;
+			}else if (slow && (
+					LogResponseLevel.ALL.equals(responseLevel) ||
+					LogResponseLevel.SLOW_ERROR.equals(responseLevel) ||
+							LogResponseLevel.SLOW_ERROR_NOBODY.equals(responseLevel))){
+				level = Level.WARN;
+			}else if (exchange.sampled && LogResponseLevel.ALL.equals(responseLevel)){
+				level = Level.INFO;
+			}
+
+			if (level != null) {
+				LogRecord record = new LogRecord(false);
+				record.setLevel(level);
+				record.setRequestId(exchange.requestId);
+				dealResponseInfo(record, httpStatus, exchange.logBody, exchange.request, exchange.response, costTime, exchange.os,
+						exchange.policy.getResponseOmitLength());
+				logWriter.write(record);
+			}
+		} finally {
+			exchange.release();
+		}
 	}
 
-	private HttpServletRequest dealRequestInfo(StringBuilder builder, HttpServletRequest request) throws UnsupportedEncodingException {
-		builder.append(request.getMethod()).append(' ').append(request.getRequestURI());
+	private class LogAsyncListener implements AsyncListener {
 
-		if (RequestMethod.GET.name().equalsIgnoreCase(request.getMethod())
-				&& StringUtils.hasText(request.getQueryString())){
-			builder.append("?").append(request.getQueryString());
+		private final LogExchange exchange;
+
+		private LogAsyncListener(LogExchange exchange) {
+			this.exchange = exchange;
 		}
 
-		if (LogRequestLevel.URL.equals(this.requestLevel)){
-			return request;
+		@Override
+		public void onComplete(AsyncEvent event) {
+			if (exchange.requestId == null) {
+				complete(exchange, true);
+				return;
+			}
+			// 异步完成回调不在原请求线程上执行，重新放入请求编号
+			String mdcKey = requestIdHandler.getMdcKey();
+			String previous = MDC.get(mdcKey);
+			MDC.put(mdcKey, exchange.requestId);
+			try {
+				complete(exchange, true);
+			} finally {
+				restoreMdc(mdcKey, previous);
+			}
 		}
 
-		boolean hasHeader = false;
+		@Override
+		public void onTimeout(AsyncEvent event) {
+		}
 
-		if (!LogRequestLevel.URL_BODY.equals(this.requestLevel)) {
-			Enumeration<String> headerNames = request.getHeaderNames();
-			boolean allFlag = !LogRequestLevel.URL_BODY_SOME_HEADER.equals(this.requestLevel);
+		@Override
+		public void onError(AsyncEvent event) {
+		}
 
-			StringBuilder headerBuilder = new StringBuilder();
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			// 再次开启异步时，监听器需重新注册
+			event.getAsyncContext().addListener(this);
+		}
+	}
 
-			while (headerNames.hasMoreElements()) {
-				String headerName = headerNames.nextElement();
-				if (allFlag || logHeader(headerName)) {
-					Enumeration<String> headers = request.getHeaders(headerName);
-					while (headers.hasMoreElements()) {
-						String value = headers.nextElement();
-						headerBuilder.append(headerName).append(": ").append(value).append('\n');
-					}
-				}
+	private void dealResponseInfo(LogRecord record, HttpStatus httpStatus, boolean logBody, HttpServletRequest request,
+								  HttpServletResponse response, long costTime, CaptureOutputStream os, int omitLength) {
+		record.setMethod(request.getMethod());
+		record.setUri(request.getRequestURI());
+		record.setStatus(httpStatus.value());
+		record.setReasonPhrase(httpStatus.getReasonPhrase());
+		record.setCostTime(costTime);
+		record.setLogBody(logBody);
+		if (logBody) {
+			record.setBodyLimit(omitLength);
+			record.setBodyTotal(os.size());
+			// json xml 输出响应体，其他类型默认按二进制流处理
+			String contentType = response.getHeader(HttpHeaders.CONTENT_TYPE);
+			if (contentType != null && (contentType.startsWith(MediaType.APPLICATION_JSON_VALUE) || contentType.startsWith(MediaType.APPLICATION_XML_VALUE))) {
+				os.applyTo(record);
+				record.setCharset(getResponseCharset(response, contentType));
 			}
+		}
+	}
 
-			if (headerBuilder.length() > 0){
-				hasHeader = true;
-				builder.append("\n\n").append(headerBuilder);
+	private Charset getResponseCharset(HttpServletResponse response, String contentType) {
+		// 未显式声明字符集时，servlet 默认返回 ISO-8859-1，这里按 UTF-8 处理
+		if (contentType.contains("charset=")) {
+			try {
+				return Charset.forName(response.getCharacterEncoding());
+			} catch (IllegalArgumentException e) {
+				log.debug("unsupported charset {}.", response.getCharacterEncoding());
 			}
 		}
+		return StandardCharsets.UTF_8;
+	}
 
-		String requestContentType = request.getHeader(HttpHeaders.CONTENT_TYPE);
+	private HttpServletRequest dealRequestInfo(LogExchange exchange, LogRecord record, HttpServletRequest request,
+											   LogPolicy policy) {
+		record.setMethod(request.getMethod());
+		record.setUri(request.getRequestURI());
+
+		if (RequestMethod.GET.name().equalsIgnoreCase(request.getMethod())
+				&& StringUtils.hasText(request.getQueryString())){
+			record.setQuery(maskRules == null ? request.getQueryString() : maskRules.maskQuery(request.getQueryString()));
+		}
+
+		LogRequestLevel requestLevel = policy.getRequestLevel();
+		if (LogRequestLevel.URL.equals(requestLevel)){
+			return request;
+		}
+
+		if (LogRequestLevel.URL_BODY_SOME_HEADER.equals(requestLevel)) {
+			// 按配置的请求头逐个查找，开销只与配置数量有关
+			List<String> headerNames = policy.getHeaders();
+			for (int i = 0; i < headerNames.size(); i++) {
+				addHeaders(record, request, headerNames.get(i));
+			}
+		}else if (!LogRequestLevel.URL_BODY.equals(requestLevel)) {
+			Enumeration<String> headerNames = request.getHeaderNames();
+			while (headerNames.hasMoreElements()) {
+				addHeaders(record, request, headerNames.nextElement());
+			}
+		}
 
-		String requestBody = "";
+		record.setLogBody(true);
+		record.setBodyLimit(policy.getRequestOmitLength());
+		// 其他类型默认按二进制流处理
+		record.setBodyTotal(Math.max(request.getContentLengthLong(), 0));
 
+		String requestContentType = request.getHeader(HttpHeaders.CONTENT_TYPE);
 		if (requestContentType != null){
 			// 普通表单提交
 			if (requestContentType.startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE)){
-				requestBody = request.getParameterMap().toString();
-			// 文件表单提交
+				record.setBodyText(maskRules == null ? request.getParameterMap().toString()
+						: maskRules.maskParameters(request.getParameterMap()));
+			// 文件表单提交，业务解析时再记录，避免提前解析上传内容
 			}else if (requestContentType.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE)){
-				requestBody = getFormParam(request);
+				request = new MultipartRequestWrapper(request, this::formatFormParam);
+				exchange.requestDeferred = true;
 			// xml/json/text
 			}else if (requestContentType.startsWith(MediaType.APPLICATION_JSON_VALUE)
 					|| requestContentType.startsWith(MediaType.APPLICATION_XML_VALUE)
 					|| requestContentType.startsWith("text")){
-				requestBody = getRequestBody(request);
-				String encoding = request.getCharacterEncoding();
-				byte[] bytes;
-				if (encoding != null){
-					bytes = requestBody.getBytes(encoding);
+				if (RequestBodyMode.LAZY.equals(this.requestBodyMode)) {
+					record.setCharset(getRequestCharset(request));
+					TeeRequestWrapper wrapper = new TeeRequestWrapper(request, bufferPool, policy.getRequestOmitLength(),
+							record.getCharset(), getRequestEncoding(request));
+					if (spillStore != null && LogRequestLevel.ALL.equals(requestLevel)) {
+						wrapper.getCapture().spillTo(createSpill(exchange, "request"));
+					}
+					request = wrapper;
+					exchange.requestDeferred = true;
 				}else {
-					bytes = requestBody.getBytes(StandardCharsets.UTF_8);
+					BodyCachingRequestWrapper wrapper = new BodyCachingRequestWrapper(request, bufferPool);
+					dealRequestBody(record, wrapper, spillStore != null && LogRequestLevel.ALL.equals(requestLevel)
+							? createSpill(exchange, "request") : null);
+					request = wrapper;
 				}
-				final ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bytes);
-				request = new HttpServletRequestWrapper(request) {
-					@Override
-					public ServletInputStream getInputStream() {
-						return new ByteArrayServletInputStream(byteArrayInputStream);
-					}
-				};
 			}else {
 				log.debug("unsupported content-type {}.", requestContentType);
 			}
 		}
+		return request;
+	}
 
-		if (StringUtils.hasText(requestBody) && requestBody.length() > this.requestOmitLength){
-			requestBody = requestBody.substring(0, this.requestOmitLength) + "...(共" + requestBody.length() + "字节)";
+	private void addHeaders(LogRecord record, HttpServletRequest request, String headerName) {
+		Enumeration<String> headers = request.getHeaders(headerName);
+		if (headers == null) {
+			return;
+		}
+		while (headers.hasMoreElements()) {
+			String value = headers.nextElement();
+			record.addHeader(headerName, maskRules == null ? value : maskRules.maskHeader(headerName, value));
 		}
+	}
 
-		int contentLength = request.getContentLength();
-		// 其他类型默认按二进制流处理
-		if (!StringUtils.hasLength(requestBody) && contentLength > 0) {
-			requestBody = "Binary data" + "(" + contentLength + " byte)";
+	/**
+	 * 请求路径，不含 context-path
+	 */
+	private String getPath(HttpServletRequest request) {
+		String uri = request.getRequestURI();
+		String contextPath = request.getContextPath();
+		if (StringUtils.hasLength(contextPath) && uri.startsWith(contextPath)) {
+			return uri.substring(contextPath.length());
 		}
+		return uri;
+	}
 
-		boolean hasBody = false;
-		if (StringUtils.hasLength(requestBody)) {
-			hasBody = true;
-			if (!hasHeader){
-				builder.append("\n");
+	/**
+	 * @param spill	超出截取长度时完整请求体的落盘文件，不落盘时为空
+	 */
+	private void dealRequestBody(LogRecord record, BodyCachingRequestWrapper request, SpillFile spill) {
+		try {
+			request.readBody();
+		} catch (IOException e) {
+			log.error("获取请求体失败，原因：{}", e.getMessage());
+			return;
+		}
+		BodyEncoding encoding = getRequestEncoding(request);
+		if (BodyEncoding.IDENTITY.equals(encoding)) {
+			record.setBody(request.getBody());
+			record.setBodyLength(request.getBodyLength());
+			if (spill != null && request.getBodyLength() > record.getBodyLimit()) {
+				spill.write(request.getBody(), 0, request.getBodyLength());
+				spill.close();
+				record.setCaptureId(spill.isWritten() ? spill.getCaptureId() : null);
+				record.setCaptureTruncated(spill.isWritten() && spill.isTruncated());
 			}
-			builder.append("\n").append(requestBody);
+		}else {
+			// 压缩的请求体只解压前 bodyLimit 字节用于输出，原始数据原样重放给应用
+			request.inflate(record.getBodyLimit(), encoding).applyTo(record);
 		}
+		record.setBodyTotal(request.getBodyLength());
+		record.setCharset(getRequestCharset(request));
+	}
 
-		if (hasHeader || hasBody) {
-			builder.append("\n");
-		}
-		return request;
+	/**
+	 * 业务处理结束后，根据已截取的请求体补全请求日志
+	 */
+	private void dealDeferredRequestBody(LogRecord record, TeeRequestWrapper request) {
+		CaptureOutputStream capture = request.getCapture();
+		capture.applyTo(record);
+		record.setBodyTotal(Math.max(capture.size(), request.getContentLengthLong()));
 	}
 
-	private boolean logHeader(String headerName) {
-		if (headers.isEmpty()){
-			return false;
+	/**
+	 * 同一请求的请求体、响应体共用捕获编号
+	 */
+	private SpillFile createSpill(LogExchange exchange, String kind) {
+		if (exchange.captureId == null) {
+			exchange.captureId = spillStore.nextCaptureId();
 		}
-		return headers.contains(headerName.toLowerCase());
+		return spillStore.create(exchange.captureId, kind);
 	}
 
+	private BodyEncoding getRequestEncoding(HttpServletRequest request) {
+		return BodyEncoding.of(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+	}
 
-	private String getRequestBody(HttpServletRequest request) {
-		try {
-			String gzipHeader = request.getHeader(HttpHeaders.CONTENT_ENCODING);
-			if (gzipHeader != null && "gzip".equalsIgnoreCase(gzipHeader.trim())){
-				GZIPInputStream gzipBody = new GZIPInputStream(request.getInputStream());
-				return IOUtils.toString(gzipBody, StandardCharsets.UTF_8);
-			}
-
-			int contentLength = request.getContentLength();
-			if(contentLength <= 0){
-				return "";
+	private Charset getRequestCharset(HttpServletRequest request) {
+		String encoding = request.getCharacterEncoding();
+		if (encoding != null) {
+			try {
+				return Charset.forName(encoding);
+			} catch (IllegalArgumentException e) {
+				log.debug("unsupported charset {}.", encoding);
 			}
-
-			return IOUtils.toString(request.getReader());
-		} catch (IOException e) {
-			log.error("获取请求体失败，原因：{}", e.getMessage());
-			return "";
 		}
+		return StandardCharsets.UTF_8;
 	}
 
-	private String getFormParam(HttpServletRequest request) {
-		MultipartResolver resolver = new StandardServletMultipartResolver();
-		MultipartHttpServletRequest mRequest = resolver.resolveMultipart(request);
-
-		Map<String,Object> param = new HashMap<>();
-		Map<String,String[]> parameterMap = mRequest.getParameterMap();
-		if (!parameterMap.isEmpty()){
-			param.putAll(parameterMap);
+	/**
+	 * 业务处理结束后取出文件表单内容，业务已解析时使用解析当时记录的结果
+	 */
+	private String getFormParam(MultipartRequestWrapper request) {
+		try {
+			return request.getFormParam();
+		} catch (IOException | ServletException | IllegalStateException e) {
+			// 未配置文件上传或请求体已被业务按流读取
+			log.debug("获取文件表单失败，原因：{}", e.getMessage());
+			return null;
 		}
-		Map<String, MultipartFile> fileMap = mRequest.getFileMap();
-		if(!fileMap.isEmpty()){
-			for (Map.Entry<String, MultipartFile> fileEntry : fileMap.entrySet()) {
-				MultipartFile file = fileEntry.getValue();
-				param.put(fileEntry.getKey(), file.getOriginalFilename()+ "(" + file.getSize()+" byte)");
+	}
+
+	private String formatFormParam(HttpServletRequest request, Collection<Part> parts) {
+		Map<String,Object> param = new LinkedHashMap<>();
+		for (Part part : parts) {
+			String fileName = part.getSubmittedFileName();
+			if (fileName != null) {
+				param.put(part.getName(), fileName + "(" + part.getSize() + " byte)");
+			}else if (!param.containsKey(part.getName())) {
+				String[] values = request.getParameterValues(part.getName());
+				if (maskRules != null) {
+					param.put(part.getName(), maskRules.maskParameter(part.getName(), values));
+				}else {
+					param.put(part.getName(), values == null ? null : Arrays.asList(values));
+				}
 			}
 		}
 		return param.toString();
@@ -0,0 +1,58 @@
+package cn.dev666.component.request.log.filter;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.Part;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.function.BiFunction;
+
+/**
+ * 文件表单请求包装，业务解析表单时立即记录各部分的名称、文件名及大小
+ *
+ * 处理结束时框架可能已清理上传的临时文件，此时再读取表单内容不可靠
+ */
+public class MultipartRequestWrapper extends HttpServletRequestWrapper {
+
+    private final BiFunction<HttpServletRequest, Collection<Part>, String> formatter;
+
+    private String formParam;
+
+    /**
+     * @param formatter 将表单各部分格式化为日志内容
+     */
+    MultipartRequestWrapper(HttpServletRequest request, BiFunction<HttpServletRequest, Collection<Part>, String> formatter) {
+        super(request);
+        this.formatter = formatter;
+    }
+
+    @Override
+    public Collection<Part> getParts() throws IOException, ServletException {
+        Collection<Part> parts = super.getParts();
+        capture(parts);
+        return parts;
+    }
+
+    @Override
+    public Part getPart(String name) throws IOException, ServletException {
+        capture(super.getParts());
+        return super.getPart(name);
+    }
+
+    private void capture(Collection<Part> parts) {
+        if (formParam == null) {
+            formParam = formatter.apply(this, parts);
+        }
+    }
+
+    /**
+     * 业务解析时记录的表单内容，业务未解析时在此解析
+     */
+    String getFormParam() throws IOException, ServletException {
+        if (formParam == null) {
+            getParts();
+        }
+        return formParam;
+    }
+}
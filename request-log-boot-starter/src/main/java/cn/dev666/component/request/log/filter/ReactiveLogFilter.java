@@ -0,0 +1,488 @@
+package cn.dev666.component.request.log.filter;
+
+import cn.dev666.component.request.log.enums.BodyEncoding;
+import cn.dev666.component.request.log.enums.LogRequestLevel;
+import cn.dev666.component.request.log.enums.LogResponseLevel;
+import cn.dev666.component.request.log.mask.MaskRules;
+import cn.dev666.component.request.log.metrics.AdaptiveSlowThreshold;
+import cn.dev666.component.request.log.metrics.RequestLatencyMetrics;
+import cn.dev666.component.request.log.rule.LogPolicy;
+import cn.dev666.component.request.log.rule.LogSettings;
+import cn.dev666.component.request.log.rule.LogSettingsHolder;
+import cn.dev666.component.request.log.sampling.Sampler;
+import cn.dev666.component.request.log.writer.LogRecord;
+import cn.dev666.component.request.log.writer.LogWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.slf4j.event.Level;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WebFlux 下的请求日志过滤器，日志级别、路径规则、采样、脱敏与 {@link LogFilter} 一致
+ *
+ * 请求体、响应体在数据块流经时按 {@link DataBuffer} 逐块截取前 omitLength 字节，不聚合、不额外请求数据，
+ * 背压由下游决定。截取请求体时请求日志在处理结束后输出。普通表单由框架统一解析，处理结束后从 exchange 读取解析结果
+ *
+ * 与 servlet 版本的差异：请求编号放入 Reactor Context 而非 MDC；文件表单只输出字节数；不支持完整体内容落盘，避免在事件循环线程上写文件
+ */
+@Slf4j
+public class ReactiveLogFilter implements WebFilter, Ordered {
+
+	/**
+	 * 请求编号在 exchange 中的属性名
+	 */
+	public static final String REQUEST_ID_ATTRIBUTE = ReactiveLogFilter.class.getName() + ".requestId";
+
+	private final int order;
+
+	/**
+	 * 当前生效的日志配置，可在运行时整体替换
+	 */
+	private final LogSettingsHolder settingsHolder;
+
+	private final BufferPool bufferPool;
+
+	private final LogWriter logWriter;
+
+	private final Sampler sampler;
+
+	private final RequestLatencyMetrics latencyMetrics;
+
+	private final AdaptiveSlowThreshold adaptiveSlowThreshold;
+
+	private final MaskRules maskRules;
+
+	private final RequestIdHandler requestIdHandler;
+
+	public ReactiveLogFilter(int order, LogSettingsHolder settingsHolder, BufferPool bufferPool,
+							 LogWriter logWriter, Sampler sampler, RequestLatencyMetrics latencyMetrics,
+							 AdaptiveSlowThreshold adaptiveSlowThreshold, MaskRules maskRules,
+							 RequestIdHandler requestIdHandler) {
+		this.order = order;
+		this.settingsHolder = settingsHolder;
+		this.bufferPool = bufferPool;
+		this.logWriter = logWriter;
+		this.sampler = sampler;
+		this.latencyMetrics = latencyMetrics;
+		this.adaptiveSlowThreshold = adaptiveSlowThreshold;
+		this.maskRules = maskRules;
+		this.requestIdHandler = requestIdHandler;
+	}
+
+	@Override
+	public int getOrder() {
+		return order;
+	}
+
+	@Override
+	@NonNull
+	public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+		long requestTime = System.currentTimeMillis();
+		ServerHttpRequest request = exchange.getRequest();
+
+		LogSettings settings = settingsHolder.get(requestTime);
+		LogPolicy policy = settings.getRuleMatcher().match(request.getPath().pathWithinApplication().value());
+		if (policy.isExcluded()) {
+			return chain.filter(exchange);
+		}
+
+		String requestId = null;
+		if (requestIdHandler != null) {
+			requestId = requestIdHandler.resolve(request.getHeaders()::getFirst);
+			exchange.getAttributes().put(REQUEST_ID_ATTRIBUTE, requestId);
+			if (requestIdHandler.isEcho()) {
+				exchange.getResponse().getHeaders().set(requestIdHandler.getHeader(), requestId);
+			}
+		}
+
+		Mono<Void> result = filterWithLog(exchange, chain, requestTime, settings, policy, requestId);
+		if (requestId != null) {
+			// 响应式处理会切换线程，请求编号通过 Context 传递给下游
+			result = result.contextWrite(Context.of(requestIdHandler.getMdcKey(), requestId));
+		}
+		return result;
+	}
+
+	private Mono<Void> filterWithLog(ServerWebExchange exchange, WebFilterChain chain, long requestTime,
+									 LogSettings settings, LogPolicy policy, String requestId) {
+		ServerHttpRequest request = exchange.getRequest();
+		String uri = request.getPath().value();
+
+		// 采样在包装请求、响应之前进行，未采中的请求不做任何额外处理
+		boolean sampled = sampler == null || sampler.sample(uri);
+		boolean logging = sampled || sampler.alwaysLogErrorSlow();
+		if (!logging && latencyMetrics == null) {
+			return chain.filter(exchange);
+		}
+
+		ReactiveLogExchange state = new ReactiveLogExchange(requestTime, policy, settings.getSlowRequestThresholdMillis(),
+				requestId, sampled, logging);
+
+		ServerHttpRequest loggedRequest = request;
+		if (sampled && !LogRequestLevel.NOTHING.equals(policy.getRequestLevel())) {
+			LogRecord requestRecord = new LogRecord(true);
+			requestRecord.setRequestId(requestId);
+			loggedRequest = dealRequestInfo(state, requestRecord, request, policy);
+			state.requestRecord = requestRecord;
+			// 截取请求体、读取表单时，处理结束后再输出请求日志
+			if (state.requestCapture == null && !state.formRequest) {
+				logWriter.write(requestRecord);
+			}
+		}
+
+		ServerHttpResponse loggedResponse = exchange.getResponse();
+		LogResponseLevel responseLevel = policy.getResponseLevel();
+		state.logBody = sampled && !LogResponseLevel.ERROR_NOBODY.equals(responseLevel) &&
+				!LogResponseLevel.SLOW_ERROR_NOBODY.equals(responseLevel);
+		if (!LogResponseLevel.NOTHING.equals(responseLevel) && state.logBody) {
+			ServerHttpResponse original = exchange.getResponse();
+			state.responseCapture = new CaptureOutputStream(bufferPool, policy.getResponseOmitLength(),
+					() -> BodyEncoding.of(original.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)));
+			loggedResponse = new CaptureResponseDecorator(original, state.responseCapture);
+		}
+
+		ServerWebExchange loggedExchange = loggedRequest == request && loggedResponse == exchange.getResponse()
+				? exchange : exchange.mutate().request(loggedRequest).response(loggedResponse).build();
+		Mono<Void> result = chain.filter(loggedExchange);
+		if (state.formRequest) {
+			// exchange 缓存了业务解析的表单，业务出错时同样输出请求日志
+			Mono<Void> readForm = Mono.defer(() -> loggedExchange.getFormData()
+					.doOnNext(formData -> state.formData = formData)
+					.onErrorResume(e -> {
+						log.debug("获取表单失败，原因：{}", e.getMessage());
+						return Mono.empty();
+					})
+					.then());
+			result = result.onErrorResume(e -> readForm.then(Mono.error(e))).then(readForm);
+		}
+		return result.doFinally(signal -> complete(state, loggedExchange, signal == SignalType.ON_COMPLETE));
+	}
+
+	/**
+	 * 输出延迟的请求日志及响应日志，并归还缓冲区
+	 *
+	 * @param logResponse	业务是否正常结束，出错或取消时不输出响应日志
+	 */
+	private void complete(ReactiveLogExchange state, ServerWebExchange exchange, boolean logResponse) {
+		try {
+			ServerHttpRequest request = exchange.getRequest();
+			ServerHttpResponse response = exchange.getResponse();
+			long now = System.currentTimeMillis();
+			long costTime = now - state.requestTime;
+			String method = request.getMethodValue();
+			String uri = request.getPath().value();
+			String pattern = null;
+			if (latencyMetrics != null || adaptiveSlowThreshold != null) {
+				Object attribute = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+				pattern = attribute instanceof PathPattern ? ((PathPattern) attribute).getPatternString() : null;
+			}
+			int status = getStatus(response);
+			if (latencyMetrics != null) {
+				// 出错时最终由异常处理返回，按 500 统计
+				latencyMetrics.record(pattern, method, logResponse ? status : HttpStatus.INTERNAL_SERVER_ERROR.value(), costTime);
+			}
+			boolean slow = adaptiveSlowThreshold != null
+					? adaptiveSlowThreshold.isSlow(pattern, method, request.getPath().pathWithinApplication().value(), costTime, now)
+					: costTime > state.slowRequestThresholdMillis;
+
+			if (!state.logging) {
+				return;
+			}
+
+			if (state.requestCapture != null) {
+				dealDeferredRequestBody(state.requestRecord, state.requestCapture, request);
+				logWriter.write(state.requestRecord);
+			}else if (state.formRequest) {
+				if (state.formData != null) {
+					state.requestRecord.setBodyText(maskRules == null ? state.formData.toString()
+							: maskRules.maskFormData(state.formData));
+				}
+				logWriter.write(state.requestRecord);
+			}
+
+			LogResponseLevel responseLevel = state.policy.getResponseLevel();
+			if (!logResponse || LogResponseLevel.NOTHING.equals(responseLevel)) {
+				return;
+			}
+
+			HttpStatus httpStatus = HttpStatus.valueOf(status);
+
+			Level level = null;
+			if (httpStatus.isError()) {
+				level = Level.ERROR;
+			}else if (slow && (
+					LogResponseLevel.ALL.equals(responseLevel) ||
+					LogResponseLevel.SLOW_ERROR.equals(responseLevel) ||
+							LogResponseLevel.SLOW_ERROR_NOBODY.equals(responseLevel))){
+				level = Level.WARN;
+			}else if (state.sampled && LogResponseLevel.ALL.equals(responseLevel)){
+				level = Level.INFO;
+			}
+
+			if (level != null) {
+				LogRecord record = new LogRecord(false);
+				record.setLevel(level);
+				record.setRequestId(state.requestId);
+				dealResponseInfo(record, httpStatus, state, method, uri, response, costTime);
+				logWriter.write(record);
+			}
+		} finally {
+			// 取消时上游可能仍在投递数据块，缓冲区不归还，避免被其他请求复用时写入
+			state.release(logResponse);
+		}
+	}
+
+	private ServerHttpRequest dealRequestInfo(ReactiveLogExchange state, LogRecord record, ServerHttpRequest request,
+											  LogPolicy policy) {
+		record.setMethod(request.getMethodValue());
+		record.setUri(request.getPath().value());
+
+		String query = request.getURI().getRawQuery();
+		if (HttpMethod.GET.equals(request.getMethod()) && query != null && !query.isEmpty()) {
+			record.setQuery(maskRules == null ? query : maskRules.maskQuery(query));
+		}
+
+		LogRequestLevel requestLevel = policy.getRequestLevel();
+		if (LogRequestLevel.URL.equals(requestLevel)) {
+			return request;
+		}
+
+		HttpHeaders headers = request.getHeaders();
+		if (LogRequestLevel.URL_BODY_SOME_HEADER.equals(requestLevel)) {
+			// 按配置的请求头逐个查找，开销只与配置数量有关
+			List<String> headerNames = policy.getHeaders();
+			for (int i = 0; i < headerNames.size(); i++) {
+				addHeaders(record, headerNames.get(i), headers.get(headerNames.get(i)));
+			}
+		}else if (!LogRequestLevel.URL_BODY.equals(requestLevel)) {
+			for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+				addHeaders(record, entry.getKey(), entry.getValue());
+			}
+		}
+
+		record.setLogBody(true);
+		record.setBodyLimit(policy.getRequestOmitLength());
+		// 其他类型默认按二进制流处理
+		record.setBodyTotal(Math.max(headers.getContentLength(), 0));
+
+		String requestContentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+		if (requestContentType != null){
+			// 普通表单处理结束后读取解析结果，xml/json/text 在业务读取请求体时截取，文件表单只输出字节数
+			if (requestContentType.startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE)) {
+				state.formRequest = true;
+			}else if (requestContentType.startsWith(MediaType.APPLICATION_JSON_VALUE)
+					|| requestContentType.startsWith(MediaType.APPLICATION_XML_VALUE)
+					|| requestContentType.startsWith("text")){
+				record.setCharset(getCharset(headers));
+				state.requestCapture = new CaptureOutputStream(bufferPool, policy.getRequestOmitLength(),
+						BodyEncoding.of(headers.getFirst(HttpHeaders.CONTENT_ENCODING)));
+				return new CaptureRequestDecorator(request, state.requestCapture);
+			}else {
+				log.debug("unsupported content-type {}.", requestContentType);
+			}
+		}
+		return request;
+	}
+
+	private void addHeaders(LogRecord record, String headerName, List<String> values) {
+		if (values == null) {
+			return;
+		}
+		for (String value : values) {
+			record.addHeader(headerName, maskRules == null ? value : maskRules.maskHeader(headerName, value));
+		}
+	}
+
+	/**
+	 * 业务处理结束后，根据已截取的请求体补全请求日志
+	 */
+	private void dealDeferredRequestBody(LogRecord record, CaptureOutputStream capture, ServerHttpRequest request) {
+		capture.applyTo(record);
+		record.setBodyTotal(Math.max(capture.size(), request.getHeaders().getContentLength()));
+	}
+
+	private void dealResponseInfo(LogRecord record, HttpStatus httpStatus, ReactiveLogExchange state, String method,
+								  String uri, ServerHttpResponse response, long costTime) {
+		record.setMethod(method);
+		record.setUri(uri);
+		record.setStatus(httpStatus.value());
+		record.setReasonPhrase(httpStatus.getReasonPhrase());
+		record.setCostTime(costTime);
+		record.setLogBody(state.logBody);
+		if (state.logBody) {
+			record.setBodyLimit(state.policy.getResponseOmitLength());
+			record.setBodyTotal(state.responseCapture.size());
+			// json xml 输出响应体，其他类型默认按二进制流处理
+			String contentType = response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+			if (contentType != null && (contentType.startsWith(MediaType.APPLICATION_JSON_VALUE) || contentType.startsWith(MediaType.APPLICATION_XML_VALUE))) {
+				state.responseCapture.applyTo(record);
+				record.setCharset(getCharset(response.getHeaders()));
+			}
+		}
+	}
+
+	/**
+	 * 未设置状态码时按 200 处理
+	 */
+	private int getStatus(ServerHttpResponse response) {
+		Integer status = response.getRawStatusCode();
+		return status != null ? status : HttpStatus.OK.value();
+	}
+
+	/**
+	 * 未显式声明字符集时按 UTF-8 处理
+	 */
+	private Charset getCharset(HttpHeaders headers) {
+		try {
+			MediaType contentType = headers.getContentType();
+			if (contentType != null && contentType.getCharset() != null) {
+				return contentType.getCharset();
+			}
+		} catch (IllegalArgumentException e) {
+			log.debug("unsupported content-type {}.", headers.getFirst(HttpHeaders.CONTENT_TYPE));
+		}
+		return StandardCharsets.UTF_8;
+	}
+
+	/**
+	 * 复制数据块中的内容到捕获流，不改变数据块的读取位置
+	 */
+	private static void tap(CaptureOutputStream capture, DataBuffer buffer) {
+		capture.write(buffer.asByteBuffer());
+	}
+
+	/**
+	 * 业务订阅请求体时，数据块流经时截取
+	 */
+	private static class CaptureRequestDecorator extends ServerHttpRequestDecorator {
+
+		private final CaptureOutputStream capture;
+
+		private CaptureRequestDecorator(ServerHttpRequest delegate, CaptureOutputStream capture) {
+			super(delegate);
+			this.capture = capture;
+		}
+
+		@Override
+		@NonNull
+		public Flux<DataBuffer> getBody() {
+			return super.getBody().doOnNext(buffer -> tap(capture, buffer));
+		}
+	}
+
+	/**
+	 * 写出响应体时，数据块流经时截取
+	 */
+	private static class CaptureResponseDecorator extends ServerHttpResponseDecorator {
+
+		private final CaptureOutputStream capture;
+
+		private CaptureResponseDecorator(ServerHttpResponse delegate, CaptureOutputStream capture) {
+			super(delegate);
+			this.capture = capture;
+		}
+
+		@Override
+		@NonNull
+		public Mono<Void> writeWith(@NonNull Publisher<? extends DataBuffer> body) {
+			return super.writeWith(Flux.from(body).doOnNext(buffer -> tap(capture, buffer)));
+		}
+
+		@Override
+		@NonNull
+		public Mono<Void> writeAndFlushWith(@NonNull Publisher<? extends Publisher<? extends DataBuffer>> body) {
+			return super.writeAndFlushWith(Flux.from(body)
+					.map(publisher -> Flux.from(publisher).doOnNext(buffer -> tap(capture, buffer))));
+		}
+	}
+
+	/**
+	 * 单次请求的日志状态，各字段在信号间按顺序访问
+	 */
+	private static class ReactiveLogExchange {
+
+		final long requestTime;
+
+		final LogPolicy policy;
+
+		final long slowRequestThresholdMillis;
+
+		final String requestId;
+
+		final boolean sampled;
+
+		final boolean logging;
+
+		LogRecord requestRecord;
+
+		/**
+		 * 请求体截取流，不截取时为空，此时除普通表单外请求日志已输出
+		 */
+		CaptureOutputStream requestCapture;
+
+		/**
+		 * 是否为普通表单，处理结束后读取解析结果
+		 */
+		boolean formRequest;
+
+		MultiValueMap<String, String> formData;
+
+		CaptureOutputStream responseCapture;
+
+		boolean logBody;
+
+		ReactiveLogExchange(long requestTime, LogPolicy policy, long slowRequestThresholdMillis, String requestId,
+							boolean sampled, boolean logging) {
+			this.requestTime = requestTime;
+			this.policy = policy;
+			this.slowRequestThresholdMillis = slowRequestThresholdMillis;
+			this.requestId = requestId;
+			this.sampled = sampled;
+			this.logging = logging;
+		}
+
+		/**
+		 * @param reuse	是否归还缓冲区，否则直接丢弃，由 GC 回收
+		 */
+		void release(boolean reuse) {
+			release(requestCapture, reuse);
+			release(responseCapture, reuse);
+		}
+
+		private static void release(CaptureOutputStream capture, boolean reuse) {
+			if (capture == null) {
+				return;
+			}
+			if (reuse) {
+				capture.release();
+			}else {
+				capture.discard();
+			}
+		}
+	}
+}
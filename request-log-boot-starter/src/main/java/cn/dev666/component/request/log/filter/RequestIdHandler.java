@@ -0,0 +1,92 @@
+package cn.dev666.component.request.log.filter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * 请求编号，优先沿用上游请求头传入的编号，没有或不合法时生成
+ *
+ * 生成的编号为 64 位随机数的 16 位十六进制表示，由 ThreadLocalRandom 产生，无锁、无竞争
+ */
+public class RequestIdHandler {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * 沿用的请求编号长度上限，超出时重新生成
+     */
+    private static final int MAX_LENGTH = 64;
+
+    private final String header;
+
+    private final String mdcKey;
+
+    private final boolean echo;
+
+    /**
+     * @param header    沿用及回写的请求头，为空时不沿用
+     * @param mdcKey    放入 MDC 的键
+     * @param echo      是否在响应头中回写
+     */
+    public RequestIdHandler(String header, String mdcKey, boolean echo) {
+        this.header = header;
+        this.mdcKey = mdcKey;
+        this.echo = echo && header != null;
+    }
+
+    /**
+     * @param headers   按名称读取请求头，servlet 与 reactive 请求共用
+     */
+    public String resolve(Function<String, String> headers) {
+        if (header != null) {
+            String requestId = headers.apply(header);
+            if (isValid(requestId)) {
+                return requestId;
+            }
+        }
+        return generate();
+    }
+
+    public static String generate() {
+        long value = ThreadLocalRandom.current().nextLong();
+        char[] chars = new char[16];
+        for (int i = 15; i >= 0; i--) {
+            chars[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 只接受字母、数字及 - _ . : 字符，避免外部传入的内容伪造日志行
+     */
+    private static boolean isValid(String requestId) {
+        if (requestId == null || requestId.isEmpty() || requestId.length() > MAX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < requestId.length(); i++) {
+            char c = requestId.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == ':';
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public String getMdcKey() {
+        return mdcKey;
+    }
+
+    /**
+     * 是否在响应头中回写请求编号
+     */
+    public boolean isEcho() {
+        return echo;
+    }
+}
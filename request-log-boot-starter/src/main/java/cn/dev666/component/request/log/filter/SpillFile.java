@@ -0,0 +1,114 @@
+package cn.dev666.component.request.log.filter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+
+/**
+ * 单个体内容的落盘文件，数据直接写入文件通道，不在堆内累积
+ *
+ * 写入失败时放弃落盘并删除文件，不影响请求处理。关闭后才登记到存储，写入中的文件不会被循环清理删除
+ *
+ * 写入在业务线程上同步进行，落盘只建议在开发、测试环境开启，磁盘较慢时会直接拉长请求耗时
+ */
+@Slf4j
+class SpillFile {
+
+    private final SpillStore store;
+
+    private final Path path;
+
+    private final String captureId;
+
+    private final long maxSize;
+
+    private FileChannel channel;
+
+    private long written;
+
+    private boolean failed;
+
+    /**
+     * 关闭后不再写入，避免重新打开时清空已登记的文件
+     */
+    private boolean closed;
+
+    /**
+     * 是否有数据因超出文件大小上限未写入
+     */
+    private boolean truncated;
+
+    SpillFile(SpillStore store, Path path, String captureId, long maxSize) {
+        this.store = store;
+        this.path = path;
+        this.captureId = captureId;
+        this.maxSize = maxSize;
+    }
+
+    void write(byte[] b, int off, int len) {
+        if (failed || closed || len <= 0) {
+            return;
+        }
+        if (len > maxSize - written) {
+            truncated = true;
+            if (written >= maxSize) {
+                return;
+            }
+        }
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(path, EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING), store.getFileAttributes());
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, maxSize - written));
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+        } catch (IOException e) {
+            failed = true;
+            log.warn("请求体落盘失败，原因：{}", e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * 是否已成功写入数据
+     */
+    boolean isWritten() {
+        return written > 0 && !failed;
+    }
+
+    /**
+     * 文件是否只保存了前 maxSize 字节
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    String getCaptureId() {
+        return captureId;
+    }
+
+    void close() {
+        FileChannel c = this.channel;
+        closed = true;
+        if (c != null) {
+            this.channel = null;
+            try {
+                c.close();
+            } catch (IOException e) {
+                log.debug("关闭请求体落盘文件 {} 失败，原因：{}", path, e.getMessage());
+            }
+            if (failed) {
+                store.delete(path);
+            }else {
+                store.register(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package cn.dev666.component.request.log.filter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 超出截取长度的完整体内容落盘存储，日志中只输出截取部分及捕获编号
+ *
+ * 按文件数循环保留，超出上限时删除最早的文件，重启后接管目录中已有的文件
+ *
+ * 落盘内容未脱敏，支持 POSIX 权限时目录及文件仅所有者可访问
+ */
+@Slf4j
+public class SpillStore {
+
+    static final String SUFFIX = ".body";
+
+    private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+
+    private static final Set<PosixFilePermission> FILE_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+
+    private final Path directory;
+
+    private final int maxFiles;
+
+    private final long maxFileSize;
+
+    /**
+     * 创建落盘文件时的权限，不支持 POSIX 权限时为空数组
+     */
+    private final FileAttribute<?>[] fileAttributes;
+
+    private final Queue<Path> files = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger fileCount = new AtomicInteger();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param directory     存储目录
+     * @param maxFiles      保留的文件数上限
+     * @param maxFileSize   单个文件大小上限，超出部分不再写入
+     */
+    public SpillStore(Path directory, int maxFiles, long maxFileSize) throws IOException {
+        boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (posix) {
+            this.directory = Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(DIRECTORY_PERMISSIONS));
+            // 目录已存在时不会应用创建权限，需显式收紧
+            Files.setPosixFilePermissions(this.directory, DIRECTORY_PERMISSIONS);
+            this.fileAttributes = new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(FILE_PERMISSIONS)};
+        }else {
+            this.directory = Files.createDirectories(directory);
+            this.fileAttributes = new FileAttribute<?>[0];
+        }
+        this.maxFiles = Math.max(maxFiles, 1);
+        this.maxFileSize = maxFileSize;
+        loadExisting();
+    }
+
+    private void loadExisting() throws IOException {
+        List<Path> existing = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                existing.add(path);
+            }
+        }
+        existing.sort((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()));
+        for (Path path : existing) {
+            register(path);
+        }
+    }
+
+    /**
+     * 生成捕获编号，同一请求的请求体、响应体共用
+     */
+    public String nextCaptureId() {
+        return Long.toHexString(System.currentTimeMillis()) + "-" + Long.toHexString(sequence.incrementAndGet());
+    }
+
+    /**
+     * 创建落盘文件，首次写入时才真正创建
+     *
+     * @param captureId 捕获编号
+     * @param kind      request 或 response
+     */
+    SpillFile create(String captureId, String kind) {
+        return new SpillFile(this, directory.resolve(captureId + "-" + kind + SUFFIX), captureId, maxFileSize);
+    }
+
+    /**
+     * 登记已写完的文件，超出保留数量时删除最早的文件
+     */
+    void register(Path path) {
+        files.offer(path);
+        fileCount.incrementAndGet();
+        while (fileCount.get() > maxFiles) {
+            Path oldest = files.poll();
+            if (oldest == null) {
+                break;
+            }
+            fileCount.decrementAndGet();
+            delete(oldest);
+        }
+    }
+
+    void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("删除请求体落盘文件 {} 失败，原因：{}", path, e.getMessage());
+        }
+    }
+
+    FileAttribute<?>[] getFileAttributes() {
+        return fileAttributes;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+}
@@ -0,0 +1,212 @@
+package cn.dev666.component.request.log.filter;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 流式解压，随压缩数据写入逐段解压，输出达到上限后即停止，不解压剩余数据，避免压缩炸弹
+ *
+ * gzip 头部按状态机逐字节跳过，不要求一次性到达
+ */
+class StreamInflater {
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final int HEADER_FIXED = 0;
+    private static final int HEADER_XLEN = 1;
+    private static final int HEADER_SKIP = 2;
+    private static final int HEADER_ZERO_TERMINATED = 3;
+    private static final int HEADER_DONE = 4;
+
+    private final boolean gzip;
+
+    private final byte[] probe = new byte[1];
+
+    private Inflater inflater;
+
+    private int headerState;
+
+    private int headerPos;
+
+    private int headerFlags;
+
+    private int headerSkip;
+
+    private boolean finished;
+
+    private boolean truncated;
+
+    private boolean failed;
+
+    StreamInflater(boolean gzip) {
+        this.gzip = gzip;
+        this.headerState = gzip ? HEADER_FIXED : HEADER_DONE;
+    }
+
+    /**
+     * 解压一段压缩数据，写入 out[outOff, outEnd)
+     *
+     * @return 写入的字节数
+     */
+    int inflate(byte[] in, int off, int len, byte[] out, int outOff, int outEnd) {
+        if (isDone() || len <= 0) {
+            return 0;
+        }
+        if (headerState != HEADER_DONE) {
+            int consumed = skipHeader(in, off, len);
+            off += consumed;
+            len -= consumed;
+            if (failed || len == 0) {
+                return 0;
+            }
+        }
+        if (inflater == null) {
+            inflater = new Inflater(gzip || !isZlibHeader(in[off]));
+        }
+
+        int written = 0;
+        try {
+            inflater.setInput(in, off, len);
+            while (true) {
+                if (outOff + written == outEnd) {
+                    // 输出已满，探测是否还有未输出的数据
+                    if (inflater.inflate(probe, 0, 1) > 0) {
+                        truncated = true;
+                        end();
+                    } else if (inflater.finished()) {
+                        finished = true;
+                        end();
+                    }
+                    break;
+                }
+                int n = inflater.inflate(out, outOff + written, outEnd - outOff - written);
+                written += n;
+                if (inflater.finished()) {
+                    finished = true;
+                    end();
+                    break;
+                }
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        failed = true;
+                        end();
+                    }
+                    break;
+                }
+            }
+        } catch (DataFormatException e) {
+            failed = true;
+            end();
+        }
+        return written;
+    }
+
+    private int skipHeader(byte[] in, int off, int len) {
+        int i = off;
+        int end = off + len;
+        while (i < end && headerState != HEADER_DONE) {
+            int b = in[i++] & 0xFF;
+            switch (headerState) {
+                case HEADER_FIXED:
+                    if ((headerPos == 0 && b != 0x1F) || (headerPos == 1 && b != 0x8B) || (headerPos == 2 && b != 8)) {
+                        failed = true;
+                        return len;
+                    }
+                    if (headerPos == 3) {
+                        headerFlags = b;
+                    }
+                    if (++headerPos == 10) {
+                        nextHeaderState();
+                    }
+                    break;
+                case HEADER_XLEN:
+                    if (headerPos == 0) {
+                        headerSkip = b;
+                        headerPos = 1;
+                    } else {
+                        headerSkip |= b << 8;
+                        headerState = HEADER_SKIP;
+                        if (headerSkip == 0) {
+                            nextHeaderState();
+                        }
+                    }
+                    break;
+                case HEADER_SKIP:
+                    if (--headerSkip == 0) {
+                        nextHeaderState();
+                    }
+                    break;
+                default:
+                    if (b == 0) {
+                        nextHeaderState();
+                    }
+            }
+        }
+        return i - off;
+    }
+
+    private void nextHeaderState() {
+        if ((headerFlags & FEXTRA) != 0) {
+            headerFlags &= ~FEXTRA;
+            headerState = HEADER_XLEN;
+            headerPos = 0;
+        } else if ((headerFlags & FNAME) != 0) {
+            headerFlags &= ~FNAME;
+            headerState = HEADER_ZERO_TERMINATED;
+        } else if ((headerFlags & FCOMMENT) != 0) {
+            headerFlags &= ~FCOMMENT;
+            headerState = HEADER_ZERO_TERMINATED;
+        } else if ((headerFlags & FHCRC) != 0) {
+            headerFlags &= ~FHCRC;
+            headerState = HEADER_SKIP;
+            headerSkip = 2;
+        } else {
+            headerState = HEADER_DONE;
+        }
+    }
+
+    /**
+     * deflate 编码按规范应为 zlib 格式，部分服务端发送裸 deflate 数据，按首字节区分
+     */
+    private static boolean isZlibHeader(byte first) {
+        return (first & 0x0F) == 8 && ((first & 0xFF) >> 4) <= 7;
+    }
+
+    /**
+     * 已解压完整数据
+     */
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * 因超出上限停止解压
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * 数据格式错误，无法解压
+     */
+    boolean isFailed() {
+        return failed;
+    }
+
+    private boolean isDone() {
+        return finished || truncated || failed;
+    }
+
+    /**
+     * 释放本地内存，可重复调用
+     */
+    void end() {
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+}
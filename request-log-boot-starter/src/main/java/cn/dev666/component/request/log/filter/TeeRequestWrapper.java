@@ -0,0 +1,58 @@
+package cn.dev666.component.request.log.filter;
+
+import cn.dev666.component.request.log.enums.BodyEncoding;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * 不预读请求体，业务读取时截取前 limit 字节用于日志输出
+ */
+public class TeeRequestWrapper extends HttpServletRequestWrapper {
+
+    private final CaptureOutputStream capture;
+
+    private final Charset charset;
+
+    private ServletInputStream inputStream;
+
+    private BufferedReader reader;
+
+    TeeRequestWrapper(HttpServletRequest request, BufferPool pool, int limit, Charset charset, BodyEncoding encoding) {
+        super(request);
+        this.capture = new CaptureOutputStream(pool, limit, encoding);
+        this.charset = charset;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (inputStream == null) {
+            inputStream = new TeeServletInputStream(super.getInputStream(), capture);
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (reader == null) {
+            reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+        return reader;
+    }
+
+    CaptureOutputStream getCapture() {
+        return capture;
+    }
+
+    /**
+     * 归还缓冲区，请求处理结束后调用
+     */
+    void release() {
+        capture.release();
+    }
+}
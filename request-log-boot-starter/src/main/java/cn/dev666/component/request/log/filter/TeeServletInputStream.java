@@ -0,0 +1,65 @@
+package cn.dev666.component.request.log.filter;
+
+import org.springframework.lang.NonNull;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+
+/**
+ * 业务读取请求体时，同步写入捕获流
+ */
+public class TeeServletInputStream extends ServletInputStream {
+
+    private final ServletInputStream delegate;
+
+    private final CaptureOutputStream capture;
+
+    TeeServletInputStream(ServletInputStream delegate, CaptureOutputStream capture) {
+        this.delegate = delegate;
+        this.capture = capture;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = delegate.read();
+        if (b >= 0) {
+            capture.write(b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(@NonNull byte[] b, int off, int len) throws IOException {
+        int n = delegate.read(b, off, len);
+        if (n > 0) {
+            capture.write(b, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return delegate.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return delegate.isFinished();
+    }
+
+    @Override
+    public boolean isReady() {
+        return delegate.isReady();
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener) {
+        delegate.setReadListener(readListener);
+    }
+}
@@ -10,9 +10,12 @@ import java.io.OutputStream;
 
 public class TeeServletOutputStream extends ServletOutputStream {
 
+    private final ServletOutputStream delegate;
+
     private final TeeOutputStream teeOutputStream;
 
-    TeeServletOutputStream(OutputStream one, OutputStream two) {
+    TeeServletOutputStream(ServletOutputStream one, OutputStream two) {
+        this.delegate = one;
         this.teeOutputStream = new TeeOutputStream(one, two);
     }
 
@@ -45,11 +48,11 @@ public class TeeServletOutputStream extends ServletOutputStream {
 
     @Override
     public boolean isReady() {
-        return false;
+        return delegate.isReady();
     }
 
     @Override
     public void setWriteListener(WriteListener writeListener) {
-
+        delegate.setWriteListener(writeListener);
     }
 }
\ No newline at end of file
@@ -0,0 +1,174 @@
+package cn.dev666.component.request.log.mask;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JSON 体脱敏，流式解析一遍，按解析位置原样复制原文，只把命中的字段值整体替换，对象、数组值直接跳过，
+ * 原有的缩进、换行等格式保持不变
+ *
+ * 规则为字段名时匹配任意层级的同名字段，如 password；以 $. 开头时从根节点按层级匹配，
+ * 数组层级不计入路径，如 $.user.idCard 可匹配 {"user":{"idCard":""}}，$.items.token 可匹配 items 数组中各元素的 token
+ */
+@Slf4j
+public class JsonMasker {
+
+    private static final String ROOT = "$.";
+
+    /**
+     * 格式错误时追加的标记，错误处之后的内容可能含未脱敏的字段，不再输出
+     */
+    static final String MALFORMED = "...(JSON 格式错误，后续内容已省略)";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private final Set<String> names = new HashSet<>();
+
+    /**
+     * 按路径末段索引的完整路径
+     */
+    private final Map<String, List<String[]>> paths = new HashMap<>();
+
+    /**
+     * 替换值，已按 JSON 字符串转义并加引号
+     */
+    private final String replacement;
+
+    public JsonMasker(Collection<String> rules, String replacement) {
+        this.replacement = '"' + new String(JsonStringEncoder.getInstance().quoteAsString(replacement)) + '"';
+        for (String rule : rules) {
+            if (rule.startsWith(ROOT)) {
+                String[] segments = rule.substring(ROOT.length()).split("\\.");
+                paths.computeIfAbsent(segments[segments.length - 1], k -> new ArrayList<>()).add(segments);
+            } else {
+                names.add(rule);
+            }
+        }
+    }
+
+    /**
+     * 是否可能为 JSON 对象或数组
+     */
+    public static boolean looksLikeJson(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '{' || c == '[';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 脱敏后写入 out，格式与原文一致
+     *
+     * 截断的 JSON 在截断处之后的不完整内容原样输出，截断处正好在命中的字段值中时输出替换值；
+     * 格式错误时只输出错误处之前的内容，并追加 {@link #MALFORMED} 标记
+     *
+     * @return 是否为完整的单个 JSON 值
+     */
+    public boolean mask(String json, StringBuilder out) {
+        int roots = 0;
+        // 原文已输出到的位置
+        int copied = 0;
+        // 已确认格式正确的位置，格式错误时输出到此为止
+        int safe = 0;
+        // 正在替换的字段值的起始位置，字段值尚未出现时为原文长度
+        int masking = -1;
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                // 字段名、字符串值可能尚未读完，只能确认到起始位置
+                safe = token == JsonToken.FIELD_NAME || token == JsonToken.VALUE_STRING
+                        ? offset(parser.getTokenLocation().getCharOffset(), json)
+                        : offset(parser.getCurrentLocation().getCharOffset(), json);
+                if (token == JsonToken.FIELD_NAME && isMasked(parser.getParsingContext())) {
+                    masking = json.length();
+                    parser.nextToken();
+                    masking = offset(parser.getTokenLocation().getCharOffset(), json);
+                    parser.skipChildren();
+                    // 字符串值延迟解析，需读完才能确定结束位置
+                    parser.finishToken();
+                    out.append(json, copied, masking).append(replacement);
+                    copied = offset(parser.getCurrentLocation().getCharOffset(), json);
+                    masking = -1;
+                } else if (token != JsonToken.FIELD_NAME && parser.getParsingContext().inRoot()) {
+                    roots++;
+                }
+            }
+            out.append(json, copied, json.length());
+            return roots == 1;
+        } catch (JsonProcessingException e) {
+            if (!isTruncated(e, json)) {
+                out.append(json, copied, Math.max(copied, safe)).append(MALFORMED);
+            } else if (masking >= 0) {
+                out.append(json, copied, masking).append(replacement);
+            } else {
+                out.append(json, copied, json.length());
+            }
+            return false;
+        } catch (IOException e) {
+            log.debug("JSON 脱敏失败，原因：{}", e.getMessage());
+            out.append(json, copied, Math.max(copied, safe)).append(MALFORMED);
+            return false;
+        }
+    }
+
+    /**
+     * 解析到原文末尾才出错视为截断，部分截断场景抛出的不是 JsonEOFException
+     */
+    private static boolean isTruncated(JsonProcessingException e, String json) {
+        return e instanceof JsonEOFException
+                || (e.getLocation() != null && e.getLocation().getCharOffset() >= json.length());
+    }
+
+    private static int offset(long charOffset, String json) {
+        return (int) Math.min(Math.max(charOffset, 0), json.length());
+    }
+
+    private boolean isMasked(JsonStreamContext context) {
+        String name = context.getCurrentName();
+        if (names.contains(name)) {
+            return true;
+        }
+        List<String[]> candidates = paths.get(name);
+        if (candidates != null) {
+            for (String[] segments : candidates) {
+                if (matchPath(context, segments)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchPath(JsonStreamContext context, String[] segments) {
+        int i = segments.length - 1;
+        JsonStreamContext current = context;
+        while (current != null && !current.inRoot()) {
+            if (current.inObject()) {
+                if (i < 0 || !segments[i].equals(current.getCurrentName())) {
+                    return false;
+                }
+                i--;
+            }
+            current = current.getParent();
+        }
+        return i < 0;
+    }
+}
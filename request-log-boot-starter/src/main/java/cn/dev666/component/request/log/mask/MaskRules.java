@@ -0,0 +1,115 @@
+package cn.dev666.component.request.log.mask;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 请求头、表单参数、查询参数脱敏规则，名称均忽略大小写，匹配时不分配新字符串
+ */
+public class MaskRules {
+
+    private final Set<String> headers = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    private final Set<String> keys = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    private final String replacement;
+
+    /**
+     * @param headers       脱敏的请求头
+     * @param keys          脱敏的表单参数、查询参数
+     * @param replacement   替换内容
+     */
+    public MaskRules(Collection<String> headers, Collection<String> keys, String replacement) {
+        if (headers != null) {
+            this.headers.addAll(headers);
+        }
+        if (keys != null) {
+            this.keys.addAll(keys);
+        }
+        this.replacement = replacement;
+    }
+
+    public String maskHeader(String name, String value) {
+        return headers.contains(name) ? replacement : value;
+    }
+
+    /**
+     * 表单参数转为 {name=[value]} 格式，脱敏的参数值整体替换
+     */
+    public String maskParameters(Map<String, String[]> parameterMap) {
+        Map<String, Object> param = new LinkedHashMap<>();
+        for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
+            param.put(entry.getKey(), maskParameter(entry.getKey(), entry.getValue()));
+        }
+        return param.toString();
+    }
+
+    /**
+     * 响应式表单数据转为 {name=[value]} 格式，脱敏的参数值整体替换
+     */
+    public String maskFormData(Map<String, List<String>> formData) {
+        Map<String, Object> param = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : formData.entrySet()) {
+            param.put(entry.getKey(), keys.contains(entry.getKey()) ? replacement : entry.getValue());
+        }
+        return param.toString();
+    }
+
+    public Object maskParameter(String name, String[] values) {
+        if (keys.contains(name)) {
+            return replacement;
+        }
+        return values == null ? null : Arrays.asList(values);
+    }
+
+    /**
+     * 查询参数脱敏，没有需脱敏的参数时原样返回
+     */
+    public String maskQuery(String query) {
+        if (query == null || keys.isEmpty()) {
+            return query;
+        }
+        StringBuilder builder = null;
+        int start = 0;
+        int length = query.length();
+        while (start <= length) {
+            int end = query.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            int eq = query.indexOf('=', start);
+            if (eq > start && eq < end && containsKey(query, start, eq)) {
+                if (builder == null) {
+                    builder = new StringBuilder(length);
+                    builder.append(query, 0, start);
+                }
+                builder.append(query, start, eq + 1).append(replacement);
+            } else if (builder != null) {
+                builder.append(query, start, end);
+            }
+            if (builder != null && end < length) {
+                builder.append('&');
+            }
+            start = end + 1;
+        }
+        return builder == null ? query : builder.toString();
+    }
+
+    private boolean containsKey(String query, int start, int end) {
+        for (String key : keys) {
+            if (key.length() == end - start && query.regionMatches(true, start, key, 0, key.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String getReplacement() {
+        return replacement;
+    }
+}
@@ -0,0 +1,145 @@
+package cn.dev666.component.request.log.metrics;
+
+import cn.dev666.component.request.log.rule.PathTrie;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 按路由自适应判断慢请求，耗时超过该路由近期 p99 的若干倍时判定为慢请求
+ *
+ * 样本不足时使用全局阈值，按路径配置了固定阈值的优先使用固定阈值，
+ * 固定阈值与路径规则一样编译为前缀树匹配，匹配结果按路径缓存，缓存满时清空重建
+ */
+public class AdaptiveSlowThreshold {
+
+    private static final double QUANTILE = 0.99;
+
+    private static final HttpMethod[] METHODS = HttpMethod.values();
+
+    /**
+     * 缓存中表示未配置固定阈值
+     */
+    private static final Long NO_OVERRIDE = -1L;
+
+    private final PathTrie overrideTrie = new PathTrie();
+
+    private final List<Long> overrideMillis = new ArrayList<>();
+
+    private final int cacheSize;
+
+    private final Map<String, Long> overrideCache = new ConcurrentHashMap<>();
+
+    private final long defaultMillis;
+
+    private final double multiple;
+
+    private final long minMillis;
+
+    private final int minSamples;
+
+    private final long decayIntervalMillis;
+
+    private final int maxRoutes;
+
+    private final Map<String, AtomicReferenceArray<DecayingHistogram>> routes = new ConcurrentHashMap<>();
+
+    /**
+     * @param defaultThreshold  样本不足时使用的全局阈值
+     * @param multiple          超过路由 p99 的倍数
+     * @param minThreshold      自适应阈值下限，避免极快的接口因轻微抖动被判定为慢请求
+     * @param minSamples        启用自适应阈值所需的最少样本数
+     * @param decayInterval     衰减周期
+     * @param maxRoutes         跟踪的路由数上限，超出后使用全局阈值
+     * @param overrides         按路径指定的固定阈值，Ant 风格，不含 context-path，按配置顺序匹配
+     * @param cacheSize         固定阈值匹配结果缓存的路径数上限
+     */
+    public AdaptiveSlowThreshold(Duration defaultThreshold, double multiple, Duration minThreshold, int minSamples,
+                                 Duration decayInterval, int maxRoutes, Map<String, Duration> overrides, int cacheSize) {
+        this.defaultMillis = defaultThreshold.toMillis();
+        this.multiple = multiple;
+        this.minMillis = minThreshold.toMillis();
+        this.minSamples = minSamples;
+        this.decayIntervalMillis = decayInterval.toMillis();
+        this.maxRoutes = maxRoutes;
+        this.cacheSize = cacheSize;
+        if (overrides != null) {
+            for (Map.Entry<String, Duration> entry : overrides.entrySet()) {
+                overrideTrie.add(entry.getKey(), overrideMillis.size());
+                overrideMillis.add(entry.getValue().toMillis());
+            }
+        }
+    }
+
+    /**
+     * 判断是否为慢请求，并记录本次耗时
+     *
+     * @param pattern   URI模式，未匹配到处理器时为空，此时只使用固定阈值
+     * @param method    请求方法
+     * @param path      请求路径，不含 context-path，用于匹配固定阈值
+     * @param millis    耗时
+     * @param now       当前时间
+     */
+    public boolean isSlow(String pattern, String method, String path, long millis, long now) {
+        long override = getOverrideMillis(path);
+        if (override >= 0) {
+            return millis > override;
+        }
+
+        DecayingHistogram histogram = getHistogram(pattern, method);
+        if (histogram == null) {
+            return millis > defaultMillis;
+        }
+        // 先判断再记录，避免异常耗时抬高自身阈值
+        boolean slow = histogram.getCount() < minSamples
+                ? millis > defaultMillis
+                : millis > Math.max(histogram.getPercentile() * multiple, minMillis);
+        histogram.record(millis, now);
+        return slow;
+    }
+
+    private long getOverrideMillis(String path) {
+        if (overrideMillis.isEmpty()) {
+            return NO_OVERRIDE;
+        }
+        Long millis = overrideCache.get(path);
+        if (millis != null) {
+            return millis;
+        }
+        int index = overrideTrie.match(path);
+        millis = index == PathTrie.NO_MATCH ? NO_OVERRIDE : overrideMillis.get(index);
+        if (cacheSize > 0) {
+            if (overrideCache.size() >= cacheSize) {
+                overrideCache.clear();
+            }
+            overrideCache.put(path, millis);
+        }
+        return millis;
+    }
+
+    private DecayingHistogram getHistogram(String pattern, String method) {
+        HttpMethod httpMethod = HttpMethod.resolve(method);
+        if (pattern == null || httpMethod == null) {
+            return null;
+        }
+        AtomicReferenceArray<DecayingHistogram> histograms = routes.get(pattern);
+        if (histograms == null) {
+            if (routes.size() >= maxRoutes) {
+                return null;
+            }
+            histograms = routes.computeIfAbsent(pattern, k -> new AtomicReferenceArray<>(METHODS.length));
+        }
+        int index = httpMethod.ordinal();
+        DecayingHistogram histogram = histograms.get(index);
+        if (histogram == null) {
+            histograms.compareAndSet(index, null, new DecayingHistogram(decayIntervalMillis, QUANTILE, minSamples));
+            histogram = histograms.get(index);
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,102 @@
+package cn.dev666.component.request.log.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 带衰减的延迟直方图，每个衰减周期全部计数减半，近期样本权重更高，空闲多个周期后按经过的周期数一次衰减
+ *
+ * 分位值按记录次数定期重算并缓存，样本数首次达到启用门槛时也重算，读取时不扫描桶
+ */
+class DecayingHistogram {
+
+    /**
+     * 每记录多少次重算一次分位值
+     */
+    private static final int RECALCULATE_INTERVAL = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(LatencyHistogram.BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong nextDecayTime;
+
+    private final long decayIntervalMillis;
+
+    private final double quantile;
+
+    /**
+     * 启用自适应阈值所需的样本数，达到时需已有分位值
+     */
+    private final long minSamples;
+
+    private volatile long cachedPercentile;
+
+    DecayingHistogram(long decayIntervalMillis, double quantile, long minSamples) {
+        this.decayIntervalMillis = Math.max(decayIntervalMillis, 1);
+        this.quantile = quantile;
+        this.minSamples = minSamples;
+        this.nextDecayTime = new AtomicLong(System.currentTimeMillis() + this.decayIntervalMillis);
+    }
+
+    void record(long millis, long now) {
+        long next = nextDecayTime.get();
+        if (now >= next) {
+            long periods = (now - next) / decayIntervalMillis + 1;
+            if (nextDecayTime.compareAndSet(next, next + periods * decayIntervalMillis)) {
+                decay((int) Math.min(periods, Long.SIZE - 1));
+            }
+        }
+        buckets.incrementAndGet(LatencyHistogram.bucketIndex(Math.max(millis, 0)));
+        long c = count.incrementAndGet();
+        if (c % RECALCULATE_INTERVAL == 0 || c == minSamples) {
+            recalculate();
+        }
+    }
+
+    /**
+     * 当前样本数，衰减后减少
+     */
+    long getCount() {
+        return count.get();
+    }
+
+    long getPercentile() {
+        return cachedPercentile;
+    }
+
+    /**
+     * @param shift 经过的衰减周期数，每个周期减半
+     */
+    private void decay(int shift) {
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            long value;
+            do {
+                value = buckets.get(i);
+            } while (value > 0 && !buckets.compareAndSet(i, value, value >> shift));
+            total += value >> shift;
+        }
+        count.set(total);
+        recalculate();
+    }
+
+    private void recalculate() {
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            total += buckets.get(i);
+        }
+        if (total == 0) {
+            return;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                cachedPercentile = LatencyHistogram.bucketUpperBound(i);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package cn.dev666.component.request.log.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁延迟直方图，毫秒为单位，对数-线性分桶，相对误差不超过 12.5%
+ *
+ * 按线程分散写入多个条带，减少多核下同一缓存行的竞争，读取时汇总
+ */
+public class LatencyHistogram {
+
+    /**
+     * 小于此值的延迟每毫秒一个桶
+     */
+    private static final int LINEAR_BUCKETS = 16;
+
+    /**
+     * 每个 2 的幂区间再细分的桶数
+     */
+    private static final int SUB_BUCKETS = 8;
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /**
+     * 最大可记录约 2^31 毫秒，超出的记入最后一个桶
+     */
+    private static final int MAX_EXPONENT = 31;
+
+    static final int BUCKETS = LINEAR_BUCKETS + (MAX_EXPONENT - 4 + 1) * SUB_BUCKETS;
+
+    private static final int COUNT = BUCKETS;
+
+    private static final int SUM = BUCKETS + 1;
+
+    private static final int MAX = BUCKETS + 2;
+
+    /**
+     * 每个条带之间补齐，避免相邻条带落在同一缓存行
+     */
+    private static final int STRIPE_LENGTH = BUCKETS + 3 + 8;
+
+    private static final int STRIPES;
+
+    static {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < cpus && stripes < 4) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * STRIPE_LENGTH);
+
+    private final long startTime = System.currentTimeMillis();
+
+    public void record(long millis) {
+        if (millis < 0) {
+            millis = 0;
+        }
+        int base = (int) (Thread.currentThread().getId() & (STRIPES - 1)) * STRIPE_LENGTH;
+        counts.incrementAndGet(base + bucketIndex(millis));
+        counts.incrementAndGet(base + COUNT);
+        counts.addAndGet(base + SUM, millis);
+        int maxIndex = base + MAX;
+        long max;
+        while (millis > (max = counts.get(maxIndex)) && !counts.compareAndSet(maxIndex, max, millis)) {
+            // 重试
+        }
+    }
+
+    static int bucketIndex(long millis) {
+        if (millis < LINEAR_BUCKETS) {
+            return (int) millis;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(millis);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (millis >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * 桶内最大值
+     */
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        int sub = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    public LatencySnapshot snapshot() {
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            int base = stripe * STRIPE_LENGTH;
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] += counts.get(base + i);
+            }
+            count += counts.get(base + COUNT);
+            sum += counts.get(base + SUM);
+            max = Math.max(max, counts.get(base + MAX));
+        }
+
+        long elapsed = Math.max(System.currentTimeMillis() - startTime, 1);
+        LatencySnapshot snapshot = new LatencySnapshot();
+        snapshot.setCount(count);
+        snapshot.setMax(max);
+        snapshot.setMean(count == 0 ? 0 : (double) sum / count);
+        snapshot.setThroughput(count * 1000.0 / elapsed);
+        snapshot.setP50(percentile(buckets, count, max, 0.5));
+        snapshot.setP90(percentile(buckets, count, max, 0.9));
+        snapshot.setP99(percentile(buckets, count, max, 0.99));
+        snapshot.setP999(percentile(buckets, count, max, 0.999));
+        return snapshot;
+    }
+
+    static long percentile(long[] buckets, long count, long max, double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * quantile);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+}
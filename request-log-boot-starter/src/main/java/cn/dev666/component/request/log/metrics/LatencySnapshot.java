@@ -0,0 +1,38 @@
+package cn.dev666.component.request.log.metrics;
+
+import lombok.Data;
+
+/**
+ * 延迟统计快照，时间单位为毫秒
+ */
+@Data
+public class LatencySnapshot {
+
+    private String pattern;
+
+    private String method;
+
+    /**
+     * 状态码类别，如 2xx
+     */
+    private String status;
+
+    private long count;
+
+    /**
+     * 每秒请求数，按直方图创建以来的平均值计算
+     */
+    private double throughput;
+
+    private double mean;
+
+    private long max;
+
+    private long p50;
+
+    private long p90;
+
+    private long p99;
+
+    private long p999;
+}
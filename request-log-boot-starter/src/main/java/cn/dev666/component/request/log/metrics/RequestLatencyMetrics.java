@@ -0,0 +1,108 @@
+package cn.dev666.component.request.log.metrics;
+
+import org.springframework.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 按路由（URI模式、请求方法、状态码类别）统计请求延迟
+ *
+ * 已知路由的记录过程只有一次 Map 查找和数组下标访问，不产生新对象
+ */
+public class RequestLatencyMetrics {
+
+    /**
+     * 未匹配到处理器的请求，如 404，统一记入此路由，避免按原始URI无限增长
+     */
+    public static final String UNMATCHED = "[unmatched]";
+
+    /**
+     * 路由数超出上限后，新路由统一记入此路由
+     */
+    public static final String OTHER = "[other]";
+
+    private static final HttpMethod[] METHODS = HttpMethod.values();
+
+    private static final int STATUS_CLASSES = 5;
+
+    private final int maxRoutes;
+
+    private final Map<String, RouteHistograms> routes = new ConcurrentHashMap<>();
+
+    public RequestLatencyMetrics(int maxRoutes) {
+        this.maxRoutes = maxRoutes;
+    }
+
+    /**
+     * @param pattern   URI模式，为空时记入 {@link #UNMATCHED}
+     * @param method    请求方法
+     * @param status    响应状态码
+     * @param millis    耗时
+     */
+    public void record(String pattern, String method, int status, long millis) {
+        HttpMethod httpMethod = HttpMethod.resolve(method);
+        int statusClass = status / 100 - 1;
+        if (httpMethod == null || statusClass < 0 || statusClass >= STATUS_CLASSES) {
+            return;
+        }
+        getRoute(pattern == null ? UNMATCHED : pattern)
+                .get(httpMethod.ordinal() * STATUS_CLASSES + statusClass)
+                .record(millis);
+    }
+
+    private RouteHistograms getRoute(String pattern) {
+        RouteHistograms route = routes.get(pattern);
+        if (route != null) {
+            return route;
+        }
+        if (routes.size() >= maxRoutes) {
+            pattern = OTHER;
+        }
+        return routes.computeIfAbsent(pattern, k -> new RouteHistograms());
+    }
+
+    public List<LatencySnapshot> snapshot() {
+        List<LatencySnapshot> list = new ArrayList<>();
+        for (Map.Entry<String, RouteHistograms> entry : routes.entrySet()) {
+            AtomicReferenceArray<LatencyHistogram> histograms = entry.getValue().histograms;
+            for (int i = 0; i < histograms.length(); i++) {
+                LatencyHistogram histogram = histograms.get(i);
+                if (histogram == null) {
+                    continue;
+                }
+                LatencySnapshot snapshot = histogram.snapshot();
+                snapshot.setPattern(entry.getKey());
+                snapshot.setMethod(METHODS[i / STATUS_CLASSES].name());
+                snapshot.setStatus((i % STATUS_CLASSES + 1) + "xx");
+                list.add(snapshot);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 清空全部统计
+     */
+    public void reset() {
+        routes.clear();
+    }
+
+    private static class RouteHistograms {
+
+        private final AtomicReferenceArray<LatencyHistogram> histograms =
+                new AtomicReferenceArray<>(METHODS.length * STATUS_CLASSES);
+
+        private LatencyHistogram get(int index) {
+            LatencyHistogram histogram = histograms.get(index);
+            if (histogram == null) {
+                histograms.compareAndSet(index, null, new LatencyHistogram());
+                histogram = histograms.get(index);
+            }
+            return histogram;
+        }
+    }
+}
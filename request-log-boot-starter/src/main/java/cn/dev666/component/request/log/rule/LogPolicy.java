@@ -0,0 +1,59 @@
+package cn.dev666.component.request.log.rule;
+
+import cn.dev666.component.request.log.enums.LogRequestLevel;
+import cn.dev666.component.request.log.enums.LogResponseLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 单个路径生效的日志配置，启动时编译，运行期不可变
+ */
+@Getter
+public class LogPolicy {
+
+    /**
+     * 是否排除，排除的路径不做任何处理
+     */
+    private final boolean excluded;
+
+    private final LogRequestLevel requestLevel;
+
+    private final LogResponseLevel responseLevel;
+
+    /**
+     * 输出的部分请求头，按配置顺序，忽略大小写去重，保留配置的写法作为输出的名称
+     */
+    private final List<String> headers;
+
+    private final int requestOmitLength;
+
+    private final int responseOmitLength;
+
+    public LogPolicy(boolean excluded, LogRequestLevel requestLevel, LogResponseLevel responseLevel,
+                     Set<String> headers, int requestOmitLength, int responseOmitLength) {
+        this.excluded = excluded;
+        this.requestLevel = requestLevel;
+        this.responseLevel = responseLevel;
+        if (headers != null && headers.size() > 0) {
+            // 请求头名称不区分大小写，只在去重时忽略大小写
+            Set<String> seen = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            List<String> names = new ArrayList<>(headers.size());
+            for (String header : headers) {
+                String name = header.trim();
+                if (seen.add(name)) {
+                    names.add(name);
+                }
+            }
+            this.headers = Collections.unmodifiableList(names);
+        }else {
+            this.headers = Collections.emptyList();
+        }
+        this.requestOmitLength = requestOmitLength;
+        this.responseOmitLength = responseOmitLength;
+    }
+}
@@ -0,0 +1,24 @@
+package cn.dev666.component.request.log.rule;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 路径规则，路径匹配时使用对应的日志配置
+ */
+@Getter
+@AllArgsConstructor
+public class LogRule {
+
+    /**
+     * 路径模式，不含 context-path
+     */
+    private final String pattern;
+
+    /**
+     * 是否为正则表达式，否则为 Ant 风格
+     */
+    private final boolean regex;
+
+    private final LogPolicy policy;
+}
@@ -0,0 +1,94 @@
+package cn.dev666.component.request.log.rule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 按请求路径查找生效的日志配置，规则按配置顺序优先，均未匹配时使用默认配置
+ *
+ * Ant 风格规则编译为前缀树，正则规则逐个匹配，匹配结果按路径缓存，缓存满时清空重建
+ */
+public class LogRuleMatcher {
+
+    private final LogPolicy defaultPolicy;
+
+    private final List<LogPolicy> policies = new ArrayList<>();
+
+    private final PathTrie trie = new PathTrie();
+
+    private final List<Pattern> regexes = new ArrayList<>();
+
+    private final List<Integer> regexIndexes = new ArrayList<>();
+
+    private final int cacheSize;
+
+    private final Map<String, LogPolicy> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param defaultPolicy 默认配置
+     * @param rules         路径规则，按顺序优先
+     * @param cacheSize     匹配结果缓存的路径数上限
+     */
+    public LogRuleMatcher(LogPolicy defaultPolicy, List<LogRule> rules, int cacheSize) {
+        this.defaultPolicy = defaultPolicy;
+        this.cacheSize = cacheSize;
+        if (rules != null) {
+            for (LogRule rule : rules) {
+                int index = policies.size();
+                policies.add(rule.getPolicy());
+                if (rule.isRegex()) {
+                    regexes.add(Pattern.compile(rule.getPattern()));
+                    regexIndexes.add(index);
+                }else {
+                    trie.add(rule.getPattern(), index);
+                }
+            }
+        }
+    }
+
+    public LogPolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    /**
+     * @param path  请求路径，不含 context-path
+     */
+    public LogPolicy match(String path) {
+        if (policies.isEmpty()) {
+            return defaultPolicy;
+        }
+        LogPolicy policy = cache.get(path);
+        if (policy != null) {
+            return policy;
+        }
+        policy = doMatch(path);
+        if (cacheSize > 0) {
+            if (cache.size() >= cacheSize) {
+                cache.clear();
+            }
+            cache.put(path, policy);
+        }
+        return policy;
+    }
+
+    /**
+     * 当前缓存的路径数
+     */
+    int getCachedCount() {
+        return cache.size();
+    }
+
+    private LogPolicy doMatch(String path) {
+        int best = trie.match(path);
+        for (int i = 0; i < regexes.size(); i++) {
+            int index = regexIndexes.get(i);
+            if (index < best && regexes.get(i).matcher(path).matches()) {
+                best = index;
+            }
+        }
+        return best == PathTrie.NO_MATCH ? defaultPolicy : policies.get(best);
+    }
+}
@@ -0,0 +1,51 @@
+package cn.dev666.component.request.log.rule;
+
+import java.time.Duration;
+
+/**
+ * 过滤器运行时使用的日志配置快照，创建后不可变，调整配置时整体替换
+ */
+public class LogSettings {
+
+    private final LogRuleMatcher ruleMatcher;
+
+    private final long slowRequestThresholdMillis;
+
+    /**
+     * 到期时间，到期后恢复启动时的配置，0 表示不过期
+     */
+    private final long expiresAt;
+
+    public LogSettings(LogRuleMatcher ruleMatcher, Duration slowRequestThreshold) {
+        this(ruleMatcher, slowRequestThreshold.toMillis(), 0);
+    }
+
+    private LogSettings(LogRuleMatcher ruleMatcher, long slowRequestThresholdMillis, long expiresAt) {
+        this.ruleMatcher = ruleMatcher;
+        this.slowRequestThresholdMillis = slowRequestThresholdMillis;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * 返回指定到期时间的副本
+     */
+    LogSettings expireAt(long expiresAt) {
+        return new LogSettings(ruleMatcher, slowRequestThresholdMillis, expiresAt);
+    }
+
+    boolean isExpired(long now) {
+        return expiresAt != 0 && now >= expiresAt;
+    }
+
+    public LogRuleMatcher getRuleMatcher() {
+        return ruleMatcher;
+    }
+
+    public long getSlowRequestThresholdMillis() {
+        return slowRequestThresholdMillis;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,64 @@
+package cn.dev666.component.request.log.rule;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 持有当前生效的日志配置快照，过滤器每次请求只做一次 volatile 读取，不加锁
+ *
+ * 临时配置的到期检查在读取时进行，不需要额外的定时线程，到期后首个请求将其恢复为启动时的配置
+ */
+@Slf4j
+public class LogSettingsHolder {
+
+    private final LogSettings baseline;
+
+    private final AtomicReference<LogSettings> current;
+
+    /**
+     * @param baseline  启动时的配置
+     */
+    public LogSettingsHolder(LogSettings baseline) {
+        this.baseline = baseline;
+        this.current = new AtomicReference<>(baseline);
+    }
+
+    /**
+     * @param now   当前时间，用于检查临时配置是否到期
+     */
+    public LogSettings get(long now) {
+        LogSettings settings = current.get();
+        if (settings.isExpired(now)) {
+            if (current.compareAndSet(settings, baseline)) {
+                log.info("临时日志配置已到期，恢复启动时的配置");
+            }
+            return current.get();
+        }
+        return settings;
+    }
+
+    /**
+     * 替换当前配置
+     *
+     * @param ttl   生效时长，到期后恢复启动时的配置，为空时一直生效
+     */
+    public void apply(LogSettings settings, Duration ttl) {
+        if (ttl != null && (ttl.isZero() || ttl.isNegative())) {
+            throw new IllegalArgumentException("生效时长需大于0");
+        }
+        current.set(ttl == null ? settings.expireAt(0) : settings.expireAt(System.currentTimeMillis() + ttl.toMillis()));
+    }
+
+    /**
+     * 恢复启动时的配置
+     */
+    public void reset() {
+        current.set(baseline);
+    }
+
+    public LogSettings getBaseline() {
+        return baseline;
+    }
+}
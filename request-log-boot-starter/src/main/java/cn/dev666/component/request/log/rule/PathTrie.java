@@ -0,0 +1,141 @@
+package cn.dev666.component.request.log.rule;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ant 风格路径模式按段编译成的前缀树，字面量段按哈希查找，通配段逐个匹配，
+ * 匹配代价与路径段数成正比，多个模式同时匹配时取最先配置的规则
+ */
+public class PathTrie {
+
+    public static final int NO_MATCH = Integer.MAX_VALUE;
+
+    private static final String DOUBLE_WILDCARD = "**";
+
+    private final PathMatcher segmentMatcher = new AntPathMatcher();
+
+    private final Node root = new Node(null);
+
+    /**
+     * @param pattern   Ant 风格路径模式
+     * @param index     规则序号，越小优先级越高
+     */
+    public void add(String pattern, int index) {
+        Node node = root;
+        node.minIndex = Math.min(node.minIndex, index);
+        for (String segment : split(pattern)) {
+            node = node.child(segment);
+            node.minIndex = Math.min(node.minIndex, index);
+        }
+        node.index = Math.min(node.index, index);
+    }
+
+    /**
+     * 返回匹配的最小规则序号，未匹配时返回 {@link #NO_MATCH}
+     */
+    public int match(String path) {
+        return match(root, split(path), 0, NO_MATCH);
+    }
+
+    private int match(Node node, String[] segments, int position, int best) {
+        // 子树中不存在更优先的规则，无需继续
+        if (node.minIndex >= best) {
+            return best;
+        }
+        if (position == segments.length) {
+            best = Math.min(best, node.index);
+            if (node.doubleWildcard != null) {
+                best = match(node.doubleWildcard, segments, position, best);
+            }
+            return best;
+        }
+
+        String segment = segments[position];
+        Node literal = node.literals.get(segment);
+        if (literal != null) {
+            best = match(literal, segments, position + 1, best);
+        }
+        for (Node wildcard : node.wildcards) {
+            if (segmentMatcher.match(wildcard.segment, segment)) {
+                best = match(wildcard, segments, position + 1, best);
+            }
+        }
+        if (node.doubleWildcard != null) {
+            // ** 可匹配零个或多个段
+            for (int i = position; i <= segments.length; i++) {
+                best = match(node.doubleWildcard, segments, i, best);
+            }
+        }
+        return best;
+    }
+
+    static String[] split(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        int length = path.length();
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == '/') {
+                if (i > start) {
+                    segments.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return segments.toArray(new String[0]);
+    }
+
+    private static boolean isWildcard(String segment) {
+        return segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0;
+    }
+
+    private static class Node {
+
+        private final String segment;
+
+        private final Map<String, Node> literals = new HashMap<>();
+
+        private final List<Node> wildcards = new ArrayList<>();
+
+        private Node doubleWildcard;
+
+        /**
+         * 以此节点结束的规则序号
+         */
+        private int index = NO_MATCH;
+
+        /**
+         * 子树中的最小规则序号，用于剪枝
+         */
+        private int minIndex = NO_MATCH;
+
+        private Node(String segment) {
+            this.segment = segment;
+        }
+
+        private Node child(String segment) {
+            if (DOUBLE_WILDCARD.equals(segment)) {
+                if (doubleWildcard == null) {
+                    doubleWildcard = new Node(segment);
+                }
+                return doubleWildcard;
+            }
+            if (isWildcard(segment)) {
+                for (Node wildcard : wildcards) {
+                    if (wildcard.segment.equals(segment)) {
+                        return wildcard;
+                    }
+                }
+                Node wildcard = new Node(segment);
+                wildcards.add(wildcard);
+                return wildcard;
+            }
+            return literals.computeIfAbsent(segment, Node::new);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package cn.dev666.component.request.log.sampling;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按固定比例随机采样
+ */
+public class RateSampler implements Sampler {
+
+    private final double rate;
+
+    private final boolean alwaysLogErrorSlow;
+
+    public RateSampler(double rate, boolean alwaysLogErrorSlow) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("采样比例需在 0 到 1 之间");
+        }
+        this.rate = rate;
+        this.alwaysLogErrorSlow = alwaysLogErrorSlow;
+    }
+
+    @Override
+    public boolean sample(String uri) {
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    @Override
+    public boolean alwaysLogErrorSlow() {
+        return alwaysLogErrorSlow;
+    }
+}
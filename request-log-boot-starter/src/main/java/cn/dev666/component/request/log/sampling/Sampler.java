@@ -0,0 +1,20 @@
+package cn.dev666.component.request.log.sampling;
+
+/**
+ * 请求日志采样，在捕获请求、响应体之前判断，未采中的请求不做任何包装
+ */
+public interface Sampler {
+
+    /**
+     * @param uri   请求URI
+     * @return      是否采中
+     */
+    boolean sample(String uri);
+
+    /**
+     * 未采中时，是否仍输出错误、慢请求的响应日志（不含体部分）
+     */
+    default boolean alwaysLogErrorSlow() {
+        return false;
+    }
+}
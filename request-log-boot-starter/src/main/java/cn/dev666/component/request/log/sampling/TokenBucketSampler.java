@@ -0,0 +1,99 @@
+package cn.dev666.component.request.log.sampling;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按URI令牌桶限流采样，每个URI每秒最多采中 permitsPerSecond 次，允许一秒的突发量
+ *
+ * 令牌桶以理论到达时间表示，每次采样只做一次 CAS，不加锁
+ *
+ * 跟踪的URI数达到上限时，清理已回满的桶后再新建，回满的桶与新建的桶等价，清理不影响限流结果，
+ * 因此 /orders/123 这类带路径参数的URI不会长期占用名额；清理每秒最多一次，清理后仍无空位时共用一个桶
+ */
+public class TokenBucketSampler implements Sampler {
+
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    private final int maxTrackedUris;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 下次允许清理的时间
+     */
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime());
+
+    /**
+     * 跟踪的URI数达到上限后，其余URI共用此桶
+     */
+    private final AtomicLong overflowBucket;
+
+    public TokenBucketSampler(int permitsPerSecond, int maxTrackedUris) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("每秒采样数需大于0");
+        }
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.burstNanos = TimeUnit.SECONDS.toNanos(1) - intervalNanos;
+        this.maxTrackedUris = maxTrackedUris;
+        this.overflowBucket = newBucket(System.nanoTime());
+    }
+
+    @Override
+    public boolean sample(String uri) {
+        return sample(uri, System.nanoTime());
+    }
+
+    boolean sample(String uri, long now) {
+        return tryAcquire(getBucket(uri, now), now);
+    }
+
+    private AtomicLong getBucket(String uri, long now) {
+        AtomicLong bucket = buckets.get(uri);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxTrackedUris && !sweep(now)) {
+            return overflowBucket;
+        }
+        return buckets.computeIfAbsent(uri, k -> newBucket(now));
+    }
+
+    /**
+     * 移除已回满的桶，即理论到达时间不晚于当前时间的桶。检查与移除之间被采中的请求可能不计入，最多多采一次
+     *
+     * @return 是否有空位
+     */
+    private boolean sweep(long now) {
+        long next = nextSweep.get();
+        if (now - next >= 0 && nextSweep.compareAndSet(next, now + TimeUnit.SECONDS.toNanos(1))) {
+            buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        }
+        return buckets.size() < maxTrackedUris;
+    }
+
+    private static AtomicLong newBucket(long now) {
+        return new AtomicLong(now - TimeUnit.SECONDS.toNanos(1));
+    }
+
+    int getTrackedCount() {
+        return buckets.size();
+    }
+
+    private boolean tryAcquire(AtomicLong bucket, long now) {
+        while (true) {
+            long tat = bucket.get();
+            long base = tat - now > 0 ? tat : now;
+            if (base - now > burstNanos) {
+                return false;
+            }
+            if (bucket.compareAndSet(tat, base + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package cn.dev666.component.request.log.writer;
+
+import cn.dev666.component.request.log.filter.LogFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public abstract class AbstractLogWriter implements LogWriter {
+
+    /**
+     * 沿用过滤器的日志名称，便于按原有方式配置日志级别
+     */
+    protected static final Logger log = LoggerFactory.getLogger(LogFilter.class);
+
+    protected final LogRenderer renderer;
+
+    protected AbstractLogWriter(LogRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    protected boolean isEnabled(LogRecord record) {
+        switch (record.getLevel()) {
+            case ERROR:
+                return log.isErrorEnabled();
+            case WARN:
+                return log.isWarnEnabled();
+            default:
+                return log.isInfoEnabled();
+        }
+    }
+
+    protected void emit(LogRecord record, StringBuilder builder) {
+        renderer.render(record, builder);
+        switch (record.getLevel()) {
+            case ERROR:
+                log.error("{}", builder.toString());
+                break;
+            case WARN:
+                log.warn("{}", builder.toString());
+                break;
+            default:
+                log.info("{}", builder.toString());
+        }
+    }
+}
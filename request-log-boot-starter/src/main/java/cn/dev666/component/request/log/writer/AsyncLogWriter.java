@@ -0,0 +1,136 @@
+package cn.dev666.component.request.log.writer;
+
+import cn.dev666.component.request.log.enums.OverflowPolicy;
+import org.slf4j.MDC;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求线程只做数据快照放入有界队列，由单独的线程格式化并输出日志
+ *
+ * 快照包含请求线程的 MDC，输出时在输出线程上恢复，日志格式中的 MDC 字段与同步输出一致
+ */
+public class AsyncLogWriter extends AbstractLogWriter implements InitializingBean, DisposableBean {
+
+    private final BlockingQueue<LogRecord> queue;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final int sampleRatio;
+
+    /**
+     * 采样策略下，剩余容量低于此值开始采样
+     */
+    private final int sampleThreshold;
+
+    private final AtomicLong sampleCount = new AtomicLong();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final StringBuilder builder = new StringBuilder(1024);
+
+    private volatile boolean running;
+
+    private Thread consumer;
+
+    public AsyncLogWriter(LogRenderer renderer, int bufferSize, OverflowPolicy overflowPolicy, int sampleRatio) {
+        super(renderer);
+        this.queue = new ArrayBlockingQueue<>(bufferSize);
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRatio = Math.max(sampleRatio, 1);
+        this.sampleThreshold = bufferSize / 4;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        consumer = new Thread(this::consume, "request-log-writer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @Override
+    public void write(LogRecord record) {
+        if (!isEnabled(record)) {
+            return;
+        }
+        record.detach();
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    queue.put(record);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+                return;
+            case SAMPLE:
+                if (Level.INFO.equals(record.getLevel()) && queue.remainingCapacity() < sampleThreshold
+                        && sampleCount.incrementAndGet() % sampleRatio != 0) {
+                    dropped.increment();
+                    return;
+                }
+                offer(record);
+                return;
+            default:
+                offer(record);
+        }
+    }
+
+    private void offer(LogRecord record) {
+        if (!queue.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    private void consume() {
+        while (running || !queue.isEmpty()) {
+            try {
+                LogRecord record = queue.poll(1, TimeUnit.SECONDS);
+                if (record != null) {
+                    builder.setLength(0);
+                    Map<String, String> mdc = record.getMdc();
+                    if (mdc != null) {
+                        MDC.setContextMap(mdc);
+                    }
+                    try {
+                        emit(record, builder);
+                    } finally {
+                        MDC.clear();
+                    }
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (Exception e) {
+                log.error("输出请求日志失败", e);
+            }
+        }
+    }
+
+    /**
+     * 因队列满或采样被丢弃的日志数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (consumer != null) {
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+}
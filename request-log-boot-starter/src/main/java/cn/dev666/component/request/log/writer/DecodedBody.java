@@ -0,0 +1,56 @@
+package cn.dev666.component.request.log.writer;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 按输出上限解码后的体内容
+ */
+class DecodedBody {
+
+    final String text;
+
+    /**
+     * 是否因超出上限或只捕获了部分数据而截断
+     */
+    final boolean truncated;
+
+    private DecodedBody(String text, boolean truncated) {
+        this.text = text;
+        this.truncated = truncated;
+    }
+
+    /**
+     * 解码体原始字节，无字节时返回 null
+     */
+    static DecodedBody of(LogRecord record) {
+        if (record.getBody() == null || record.getBodyLength() <= 0) {
+            return null;
+        }
+        int length = Math.min(record.getBodyLength(), record.getBodyLimit());
+        // 压缩的体在截取时已按上限解压
+        boolean truncated = record.isCompressed() ? record.getInflatedTotal() < 0 : record.getBodyTotal() > length;
+        return new DecodedBody(decode(record.getBody(), length, record.getCharset(), truncated), truncated);
+    }
+
+    /**
+     * 解码字节，截断时丢弃末尾不完整的 UTF-8 字符
+     */
+    static String decode(byte[] bytes, int length, Charset charset, boolean truncated) {
+        if (charset == null) {
+            charset = StandardCharsets.UTF_8;
+        }
+        if (truncated && StandardCharsets.UTF_8.equals(charset) && length > 0) {
+            int i = length - 1;
+            while (i > 0 && length - i < 4 && (bytes[i] & 0xC0) == 0x80) {
+                i--;
+            }
+            int lead = bytes[i] & 0xFF;
+            int needed = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+            if (length - i < needed) {
+                length = i;
+            }
+        }
+        return new String(bytes, 0, length, charset);
+    }
+}
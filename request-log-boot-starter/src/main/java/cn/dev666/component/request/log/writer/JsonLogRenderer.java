@@ -0,0 +1,169 @@
+package cn.dev666.component.request.log.writer;
+
+import cn.dev666.component.request.log.mask.JsonMasker;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.output.StringBuilderWriter;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 单行 JSON 格式，每条请求、响应日志输出为一个 JSON 对象，便于日志采集端直接解析
+ *
+ * 由 Jackson 流式写入复用的 StringBuilder，本身为合法 JSON 的体直接原样嵌入，不再转义为字符串
+ */
+@Slf4j
+public class JsonLogRenderer implements LogRenderer {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * JSON 体脱敏，未配置时为空
+     */
+    private final JsonMasker jsonMasker;
+
+    public JsonLogRenderer() {
+        this(null);
+    }
+
+    public JsonLogRenderer(JsonMasker jsonMasker) {
+        this.jsonMasker = jsonMasker;
+    }
+
+    @Override
+    public void render(LogRecord record, StringBuilder builder) {
+        int mark = builder.length();
+        try (JsonGenerator generator = jsonFactory.createGenerator(new StringBuilderWriter(builder))) {
+            generator.writeStartObject();
+            generator.writeStringField("type", record.isRequest() ? "request" : "response");
+            if (record.getRequestId() != null) {
+                generator.writeStringField("requestId", record.getRequestId());
+            }
+            generator.writeStringField("method", record.getMethod());
+            generator.writeStringField("uri", record.getUri());
+            if (record.isRequest()) {
+                if (record.getQuery() != null) {
+                    generator.writeStringField("query", record.getQuery());
+                }
+                writeHeaders(generator, record.getHeaders());
+            } else {
+                generator.writeNumberField("status", record.getStatus());
+                generator.writeNumberField("costMs", record.getCostTime());
+            }
+            if (record.isLogBody()) {
+                writeBody(generator, record);
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            // 写入 StringBuilder 不会出现 IO 异常，仅防御
+            builder.setLength(mark);
+            log.error("输出 JSON 日志失败，原因：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 同名请求头相邻存放，多值时输出为数组
+     */
+    private void writeHeaders(JsonGenerator generator, List<String> headers) throws IOException {
+        if (headers == null || headers.isEmpty()) {
+            return;
+        }
+        generator.writeObjectFieldStart("headers");
+        int i = 0;
+        while (i < headers.size()) {
+            String name = headers.get(i);
+            int end = i + 2;
+            while (end < headers.size() && name.equals(headers.get(end))) {
+                end += 2;
+            }
+            if (end - i == 2) {
+                generator.writeStringField(name, headers.get(i + 1));
+            } else {
+                generator.writeArrayFieldStart(name);
+                for (int j = i + 1; j < end; j += 2) {
+                    generator.writeString(headers.get(j));
+                }
+                generator.writeEndArray();
+            }
+            i = end;
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeBody(JsonGenerator generator, LogRecord record) throws IOException {
+        generator.writeNumberField("bodyBytes", record.getBodyTotal());
+        if (record.isCompressed()) {
+            generator.writeStringField("bodyEncoding", record.getEncoding().name().toLowerCase());
+            if (record.getInflatedTotal() >= 0) {
+                generator.writeNumberField("bodyInflatedBytes", record.getInflatedTotal());
+            }
+        }
+
+        String bodyText = record.getBodyText();
+        if (StringUtils.hasText(bodyText)) {
+            int limit = record.getBodyLimit();
+            boolean truncated = bodyText.length() > limit;
+            generator.writeStringField("body", truncated ? bodyText.substring(0, limit) : bodyText);
+            generator.writeBooleanField("bodyTruncated", truncated);
+            return;
+        }
+
+        DecodedBody decoded = DecodedBody.of(record);
+        if (decoded == null || !StringUtils.hasText(decoded.text)) {
+            // 其他类型默认按二进制流处理，只输出字节数
+            if (record.getBodyTotal() > 0) {
+                generator.writeBooleanField("bodyBinary", true);
+            }
+            return;
+        }
+        generator.writeFieldName("body");
+        if (jsonMasker != null && JsonMasker.looksLikeJson(decoded.text)) {
+            // 脱敏时已完整解析一遍，无需再次校验
+            StringBuilder masked = new StringBuilder(decoded.text.length());
+            if (jsonMasker.mask(decoded.text, masked) && !decoded.truncated) {
+                generator.writeRawValue(singleLine(masked.toString()));
+            } else {
+                generator.writeString(masked.toString());
+            }
+        } else if (!decoded.truncated && isJson(decoded.text)) {
+            generator.writeRawValue(singleLine(decoded.text));
+        } else {
+            generator.writeString(decoded.text);
+        }
+        generator.writeBooleanField("bodyTruncated", decoded.truncated);
+        if (record.getCaptureId() != null) {
+            generator.writeStringField("captureId", record.getCaptureId());
+            generator.writeBooleanField("captureTruncated", record.isCaptureTruncated());
+        }
+    }
+
+    /**
+     * 是否为单个合法的 JSON 对象或数组，只扫描词法，不构建对象，避免请求体伪造日志字段
+     */
+    private boolean isJson(String text) {
+        if (!JsonMasker.looksLikeJson(text)) {
+            return false;
+        }
+        try (JsonParser parser = jsonFactory.createParser(text)) {
+            parser.nextToken();
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 合法 JSON 中的换行只可能出现在字符串外，替换为空格不改变语义，保证一条日志一行
+     */
+    private static String singleLine(String json) {
+        if (json.indexOf('\n') < 0 && json.indexOf('\r') < 0) {
+            return json;
+        }
+        return json.replace('\n', ' ').replace('\r', ' ');
+    }
+}
@@ -0,0 +1,136 @@
+package cn.dev666.component.request.log.writer;
+
+import cn.dev666.component.request.log.enums.BodyEncoding;
+import lombok.Getter;
+import lombok.Setter;
+import org.slf4j.MDC;
+import org.slf4j.event.Level;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 请求、响应日志的原始数据快照，格式化由 {@link LogRenderer} 完成
+ */
+@Getter
+@Setter
+public class LogRecord {
+
+    /**
+     * 是否为请求日志，否则为响应日志
+     */
+    private final boolean request;
+
+    private Level level = Level.INFO;
+
+    /**
+     * 请求编号，请求日志与响应日志相同，未开启时为空
+     */
+    private String requestId;
+
+    private String method;
+
+    private String uri;
+
+    private String query;
+
+    /**
+     * 请求头，名称、值交替存放
+     */
+    private List<String> headers;
+
+    private int status;
+
+    private String reasonPhrase;
+
+    private long costTime;
+
+    /**
+     * 是否输出体部分，响应日志级别为 *_NOBODY 时不输出
+     */
+    private boolean logBody;
+
+    /**
+     * 已格式化的体内容，如表单参数
+     */
+    private String bodyText;
+
+    /**
+     * 体原始字节，可能为借出的缓冲区，仅前 bodyLength 字节有效
+     */
+    private byte[] body;
+
+    private int bodyLength;
+
+    /**
+     * 体总字节数，压缩时为压缩后的字节数
+     */
+    private long bodyTotal;
+
+    private Charset charset;
+
+    /**
+     * 体编码，压缩时 body 为解压后的数据
+     */
+    private BodyEncoding encoding = BodyEncoding.IDENTITY;
+
+    /**
+     * 解压后的总字节数，未压缩或超出上限未完整解压时为 -1
+     */
+    private long inflatedTotal = -1;
+
+    /**
+     * 完整体内容落盘时的捕获编号
+     */
+    private String captureId;
+
+    /**
+     * 落盘文件超出大小上限，捕获编号对应的文件只保存了部分内容
+     */
+    private boolean captureTruncated;
+
+    /**
+     * 体输出长度上限
+     */
+    private int bodyLimit;
+
+    /**
+     * 请求线程的 MDC 快照，异步输出时恢复，同步输出时为空
+     */
+    private Map<String, String> mdc;
+
+    public LogRecord(boolean request) {
+        this.request = request;
+    }
+
+    /**
+     * 体是否为压缩数据
+     */
+    public boolean isCompressed() {
+        return encoding != null && encoding != BodyEncoding.IDENTITY;
+    }
+
+    public void addHeader(String name, String value) {
+        if (headers == null) {
+            headers = new ArrayList<>();
+        }
+        headers.add(name);
+        headers.add(value);
+    }
+
+    /**
+     * 复制体字节，脱离借出的缓冲区，并保存当前线程的 MDC，供异步输出使用
+     */
+    void detach() {
+        mdc = MDC.getCopyOfContextMap();
+        if (body != null) {
+            int length = Math.min(bodyLength, bodyLimit);
+            byte[] copy = new byte[length];
+            System.arraycopy(body, 0, copy, 0, length);
+            body = copy;
+            bodyLength = length;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package cn.dev666.component.request.log.writer;
+
+/**
+ * 日志格式化
+ */
+public interface LogRenderer {
+
+    void render(LogRecord record, StringBuilder builder);
+}
@@ -0,0 +1,12 @@
+package cn.dev666.component.request.log.writer;
+
+/**
+ * 日志输出
+ */
+public interface LogWriter {
+
+    /**
+     * 输出日志，调用返回后 record 引用的缓冲区可被归还
+     */
+    void write(LogRecord record);
+}
@@ -0,0 +1,29 @@
+package cn.dev666.component.request.log.writer;
+
+import cn.dev666.component.request.log.filter.BufferPool;
+
+/**
+ * 在请求线程中格式化并输出日志
+ */
+public class SyncLogWriter extends AbstractLogWriter {
+
+    private final BufferPool bufferPool;
+
+    public SyncLogWriter(LogRenderer renderer, BufferPool bufferPool) {
+        super(renderer);
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public void write(LogRecord record) {
+        if (!isEnabled(record)) {
+            return;
+        }
+        StringBuilder builder = bufferPool.borrowBuilder();
+        try {
+            emit(record, builder);
+        } finally {
+            bufferPool.releaseBuilder(builder);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package cn.dev666.component.request.log.writer;
+
+import cn.dev666.component.request.log.mask.JsonMasker;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+/**
+ * 多行文本格式
+ */
+public class TextLogRenderer implements LogRenderer {
+
+    /**
+     * JSON 体脱敏，未配置时为空
+     */
+    private final JsonMasker jsonMasker;
+
+    public TextLogRenderer() {
+        this(null);
+    }
+
+    public TextLogRenderer(JsonMasker jsonMasker) {
+        this.jsonMasker = jsonMasker;
+    }
+
+    @Override
+    public void render(LogRecord record, StringBuilder builder) {
+        if (record.isRequest()) {
+            renderRequest(record, builder);
+        } else {
+            renderResponse(record, builder);
+        }
+    }
+
+    private void renderRequest(LogRecord record, StringBuilder builder) {
+        appendRequestId(record, builder);
+        builder.append(record.getMethod()).append(' ').append(record.getUri());
+        if (record.getQuery() != null) {
+            builder.append('?').append(record.getQuery());
+        }
+
+        boolean hasHeader = false;
+        List<String> headers = record.getHeaders();
+        if (headers != null && !headers.isEmpty()) {
+            hasHeader = true;
+            builder.append("\n\n");
+            for (int i = 0; i < headers.size(); i += 2) {
+                builder.append(headers.get(i)).append(": ").append(headers.get(i + 1)).append('\n');
+            }
+        }
+
+        if (!record.isLogBody()) {
+            if (hasHeader) {
+                builder.append('\n');
+            }
+            return;
+        }
+
+        int mark = builder.length();
+        if (!hasHeader) {
+            builder.append('\n');
+        }
+        builder.append('\n');
+        boolean hasBody = appendBody(record, builder);
+        if (!hasBody) {
+            builder.setLength(mark);
+        }
+
+        if (hasHeader || hasBody) {
+            builder.append('\n');
+        }
+    }
+
+    private void renderResponse(LogRecord record, StringBuilder builder) {
+        appendRequestId(record, builder);
+        builder.append(record.getMethod()).append(" ").append(record.getUri()).append(", ")
+                .append(record.getStatus()).append(" ").append(record.getReasonPhrase()).append(", ")
+                .append(record.getCostTime()).append(" ms");
+        if (record.isLogBody()) {
+            int mark = builder.length();
+            builder.append("\n\n");
+            if (appendBody(record, builder)) {
+                builder.append('\n');
+            } else {
+                builder.setLength(mark);
+            }
+        }
+    }
+
+    private static void appendRequestId(LogRecord record, StringBuilder builder) {
+        if (record.getRequestId() != null) {
+            builder.append('[').append(record.getRequestId()).append("] ");
+        }
+    }
+
+    /**
+     * 输出体部分，超出上限时截取，返回是否有输出
+     */
+    private boolean appendBody(LogRecord record, StringBuilder builder) {
+        int limit = record.getBodyLimit();
+        String bodyText = record.getBodyText();
+        if (StringUtils.hasText(bodyText)) {
+            if (bodyText.length() > limit) {
+                builder.append(bodyText, 0, limit).append("...(共").append(bodyText.length()).append("字节)");
+            } else {
+                builder.append(bodyText);
+            }
+            return true;
+        }
+
+        DecodedBody decoded = DecodedBody.of(record);
+        if (decoded != null) {
+            int mark = builder.length();
+            if (jsonMasker != null && JsonMasker.looksLikeJson(decoded.text)) {
+                // 保持原格式，截断处之后的不完整内容原样输出
+                jsonMasker.mask(decoded.text, builder);
+            } else {
+                builder.append(decoded.text);
+            }
+            if (decoded.truncated && record.getCaptureId() != null) {
+                builder.append("...(共").append(record.getBodyTotal())
+                        .append(record.isCaptureTruncated() ? "字节，超出落盘上限，部分内容见捕获编号 " : "字节，完整内容见捕获编号 ")
+                        .append(record.getCaptureId()).append(')');
+            } else if (decoded.truncated) {
+                if (record.isCompressed()) {
+                    builder.append("...(").append(record.getEncoding().name().toLowerCase()).append(" 压缩共")
+                            .append(record.getBodyTotal()).append("字节)");
+                } else {
+                    builder.append("...(共").append(record.getBodyTotal()).append("字节)");
+                }
+            } else if (record.isCompressed()) {
+                builder.append("(").append(record.getEncoding().name().toLowerCase()).append(" 压缩")
+                        .append(record.getBodyTotal()).append("字节，解压后").append(record.getInflatedTotal()).append("字节)");
+            }
+            if (hasText(builder, mark)) {
+                return true;
+            }
+            builder.setLength(mark);
+        }
+
+        // 其他类型默认按二进制流处理
+        if (record.getBodyTotal() > 0) {
+            builder.append("Binary data(").append(record.getBodyTotal()).append(" byte)");
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean hasText(StringBuilder builder, int from) {
+        for (int i = from; i < builder.length(); i++) {
+            if (!Character.isWhitespace(builder.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
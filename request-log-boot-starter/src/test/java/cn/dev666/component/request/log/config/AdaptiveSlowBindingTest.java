@@ -0,0 +1,39 @@
+package cn.dev666.component.request.log.config;
+
+import cn.dev666.component.request.log.metrics.AdaptiveSlowThreshold;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveSlowBindingTest {
+
+    private static final String PREFIX = "dev666.request.log";
+
+    @Test
+    void bindsOverridePatternsWithSlashesAndWildcards() {
+        Map<String, String> source = new HashMap<>();
+        source.put(PREFIX + ".adaptive-slow.enabled", "true");
+        source.put(PREFIX + ".adaptive-slow.overrides[0].pattern", "/batch/**");
+        source.put(PREFIX + ".adaptive-slow.overrides[0].threshold", "30");
+        source.put(PREFIX + ".adaptive-slow.overrides[1].pattern", "/report/*");
+        source.put(PREFIX + ".adaptive-slow.overrides[1].threshold", "500ms");
+        RequestLogProperties properties = new Binder(new MapConfigurationPropertySource(source))
+                .bind(PREFIX, RequestLogProperties.class).get();
+
+        assertEquals("/batch/**", properties.getAdaptiveSlow().getOverrides().get(0).getPattern());
+        assertEquals(Duration.ofSeconds(30), properties.getAdaptiveSlow().getOverrides().get(0).getThreshold());
+
+        AdaptiveSlowThreshold threshold = new LogFilterComponents(properties).createAdaptiveSlowThreshold();
+        assertFalse(threshold.isSlow(null, "GET", "/batch/import/run", 20_000, 0));
+        assertTrue(threshold.isSlow(null, "GET", "/batch/import/run", 31_000, 0));
+        assertTrue(threshold.isSlow(null, "GET", "/report/day", 600, 0));
+    }
+}
@@ -0,0 +1,83 @@
+package cn.dev666.component.request.log.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.servlet.ReadListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ByteArrayServletInputStreamTest {
+
+    private static final byte[] BODY = "{\"name\":\"tom\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void listenerDispatchedThroughAsyncContext() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        List<Runnable> started = new ArrayList<>();
+        request.setAsyncStarted(true);
+        request.setAsyncContext(new MockAsyncContext(request, null) {
+            @Override
+            public void start(Runnable runnable) {
+                started.add(runnable);
+            }
+        });
+
+        ByteArrayServletInputStream in = new ByteArrayServletInputStream(request, BODY, BODY.length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<String> events = new ArrayList<>();
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() {
+                byte[] chunk = new byte[4];
+                int n;
+                while (in.isReady() && (n = in.read(chunk, 0, chunk.length)) != -1) {
+                    out.write(chunk, 0, n);
+                }
+                events.add("data");
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("end");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+        assertTrue(events.isEmpty(), "注册监听器的线程上不应直接回调");
+
+        assertEquals(1, started.size());
+        started.get(0).run();
+        assertEquals("[data, end]", events.toString());
+        assertEquals(new String(BODY, StandardCharsets.UTF_8), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void rejectsListenerWithoutAsync() {
+        ByteArrayServletInputStream in = new ByteArrayServletInputStream(new MockHttpServletRequest(), BODY, BODY.length);
+        assertThrows(IllegalStateException.class, () -> in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+            }
+
+            @Override
+            public void onAllDataRead() throws IOException {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+        }));
+    }
+}
@@ -0,0 +1,29 @@
+package cn.dev666.component.request.log.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class CaptureDiscardTest {
+
+    @Test
+    void lateWritesAfterDiscardDoNotTouchPooledBuffer() {
+        BufferPool pool = new BufferPool(16);
+        CaptureOutputStream capture = new CaptureOutputStream(pool, 16);
+        capture.write(new byte[]{1, 2, 3}, 0, 3);
+        byte[] captured = capture.getBuffer();
+        capture.discard();
+
+        // 取消后上游仍可能投递数据块
+        capture.write(new byte[]{4, 5}, 0, 2);
+        capture.write(6);
+        capture.write(ByteBuffer.allocateDirect(4));
+        assertEquals(10, capture.size());
+
+        // 丢弃的缓冲区未归还，不会被其他请求借出
+        assertNotSame(captured, pool.borrowBytes(16));
+    }
+}
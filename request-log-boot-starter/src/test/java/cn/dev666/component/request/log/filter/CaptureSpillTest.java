@@ -0,0 +1,96 @@
+package cn.dev666.component.request.log.filter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class CaptureSpillTest {
+
+    @TempDir
+    Path directory;
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) ('a' + i % 26);
+        }
+        return bytes;
+    }
+
+    private CaptureOutputStream capture(long maxFileSize, byte[] data) throws Exception {
+        SpillStore store = new SpillStore(directory, 10, maxFileSize);
+        CaptureOutputStream os = new CaptureOutputStream(new BufferPool(16), 16);
+        os.spillTo(store.create(store.nextCaptureId(), "response"));
+        os.write(data, 0, 20);
+        os.write(data, 20, data.length - 20);
+        os.release();
+        return os;
+    }
+
+    @Test
+    void completeSpill() throws Exception {
+        byte[] data = bytes(100);
+        CaptureOutputStream os = capture(1024, data);
+        assertFalse(os.isCaptureTruncated());
+        assertArrayEquals(data, Files.readAllBytes(directory.resolve(os.getCaptureId() + "-response" + SpillStore.SUFFIX)));
+    }
+
+    @Test
+    void spillCutByMaxFileSize() throws Exception {
+        byte[] data = bytes(100);
+        CaptureOutputStream os = capture(50, data);
+        assertTrue(os.isCaptureTruncated());
+        byte[] spilled = Files.readAllBytes(directory.resolve(os.getCaptureId() + "-response" + SpillStore.SUFFIX));
+        assertEquals(50, spilled.length);
+        for (int i = 0; i < spilled.length; i++) {
+            assertEquals(data[i], spilled[i]);
+        }
+    }
+
+    @Test
+    void spillFilesOwnerOnly() throws Exception {
+        assumeTrue(directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path spillDirectory = directory.resolve("spill");
+        CaptureOutputStream os = new CaptureOutputStream(new BufferPool(16), 16);
+        SpillStore store = new SpillStore(spillDirectory, 10, 1024);
+        os.spillTo(store.create(store.nextCaptureId(), "request"));
+        os.write(bytes(100), 0, 100);
+        os.release();
+
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(spillDirectory)));
+        Path file = spillDirectory.resolve(os.getCaptureId() + "-request" + SpillStore.SUFFIX);
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+    }
+
+    @Test
+    void openFileNotEvicted() throws Exception {
+        SpillStore store = new SpillStore(directory, 1, 1024);
+        byte[] data = bytes(10);
+        SpillFile writing = store.create("a", "response");
+        writing.write(data, 0, data.length);
+
+        SpillFile done = store.create("b", "response");
+        done.write(data, 0, data.length);
+        done.close();
+
+        // 写入中的文件未登记，不会因其他文件关闭而被删除
+        Path writingPath = directory.resolve("a-response" + SpillStore.SUFFIX);
+        writing.write(data, 0, data.length);
+        writing.close();
+        assertEquals(20, Files.size(writingPath));
+        assertFalse(Files.exists(directory.resolve("b-response" + SpillStore.SUFFIX)));
+
+        // 关闭后的写入被忽略，不会清空已登记的文件
+        writing.write(data, 0, data.length);
+        assertEquals(20, Files.size(writingPath));
+    }
+}
@@ -0,0 +1,48 @@
+package cn.dev666.component.request.log.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockPart;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.Part;
+import java.util.Collection;
+import java.util.StringJoiner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MultipartRequestWrapperTest {
+
+    private static String format(HttpServletRequest request, Collection<Part> parts) {
+        StringJoiner joiner = new StringJoiner(",");
+        for (Part part : parts) {
+            joiner.add(part.getName() + ":" + part.getSize());
+        }
+        return joiner.toString();
+    }
+
+    private static MockHttpServletRequest multipart() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/upload");
+        request.setContentType("multipart/form-data");
+        request.addPart(new MockPart("file", "a.txt", new byte[10]));
+        request.addPart(new MockPart("name", "tom".getBytes()));
+        return request;
+    }
+
+    @Test
+    void recordsPartsWhenApplicationParses() throws Exception {
+        MockHttpServletRequest request = multipart();
+        MultipartRequestWrapper wrapper = new MultipartRequestWrapper(request, MultipartRequestWrapperTest::format);
+        wrapper.getPart("file");
+
+        // 模拟处理结束时上传内容已被清理
+        request.addPart(new MockPart("file", "a.txt", new byte[0]));
+        assertEquals("file:10,name:3", wrapper.getFormParam());
+    }
+
+    @Test
+    void parsesWhenApplicationDoesNot() throws Exception {
+        MultipartRequestWrapper wrapper = new MultipartRequestWrapper(multipart(), MultipartRequestWrapperTest::format);
+        assertEquals("file:10,name:3", wrapper.getFormParam());
+    }
+}
@@ -0,0 +1,79 @@
+package cn.dev666.component.request.log.filter;
+
+import cn.dev666.component.request.log.enums.LogRequestLevel;
+import cn.dev666.component.request.log.enums.LogResponseLevel;
+import cn.dev666.component.request.log.mask.MaskRules;
+import cn.dev666.component.request.log.rule.LogPolicy;
+import cn.dev666.component.request.log.rule.LogRuleMatcher;
+import cn.dev666.component.request.log.rule.LogSettings;
+import cn.dev666.component.request.log.rule.LogSettingsHolder;
+import cn.dev666.component.request.log.writer.LogRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReactiveLogFilterTest {
+
+    private final List<LogRecord> records = new CopyOnWriteArrayList<>();
+
+    private WebTestClient client(RouterFunction<ServerResponse> route) {
+        LogPolicy policy = new LogPolicy(false, LogRequestLevel.URL_BODY, LogResponseLevel.NOTHING, null, 1024, 1024);
+        LogSettingsHolder holder = new LogSettingsHolder(
+                new LogSettings(new LogRuleMatcher(policy, null, 0), Duration.ofSeconds(1)));
+        MaskRules maskRules = new MaskRules(null, Collections.singleton("password"), "******");
+        ReactiveLogFilter filter = new ReactiveLogFilter(0, holder, new BufferPool(1024), records::add,
+                null, null, null, maskRules, null);
+        return WebTestClient.bindToRouterFunction(route).webFilter(filter).build();
+    }
+
+    private LogRecord requestRecord() {
+        for (LogRecord record : records) {
+            if (record.isRequest()) {
+                return record;
+            }
+        }
+        throw new AssertionError("未输出请求日志");
+    }
+
+    @Test
+    void logsFormReadByApplication() {
+        RouterFunction<ServerResponse> route = RouterFunctions.route().POST("/login", request -> request.formData()
+                .flatMap(form -> ServerResponse.ok().bodyValue(form.getFirst("name")))).build();
+
+        client(route).post().uri("/login")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters.fromFormData("name", "tom").with("password", "secret"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("tom");
+
+        assertEquals("{name=[tom], password=******}", requestRecord().getBodyText());
+    }
+
+    @Test
+    void logsFormNotReadByApplication() {
+        RouterFunction<ServerResponse> route = RouterFunctions.route()
+                .POST("/ping", request -> ServerResponse.ok().bodyValue("pong")).build();
+
+        client(route).post().uri("/ping")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters.fromFormData("name", "tom"))
+                .exchange()
+                .expectStatus().isOk();
+
+        String body = requestRecord().getBodyText();
+        assertTrue(body.contains("name=[tom]"), body);
+    }
+}
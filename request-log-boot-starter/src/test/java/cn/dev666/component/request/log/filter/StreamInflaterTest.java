@@ -0,0 +1,140 @@
+package cn.dev666.component.request.log.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamInflaterTest {
+
+    private static final byte[] TEXT = "{\"name\":\"tom\",\"items\":[1,2,3],\"remark\":\"stream inflater test\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static byte[] deflate(byte[] data, boolean nowrap) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[1024];
+        while (!deflater.finished()) {
+            out.write(buf, 0, deflater.deflate(buf));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] data) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 带 FEXTRA、FNAME、FCOMMENT、FHCRC 可选字段的 gzip 数据
+     */
+    private static byte[] gzipWithOptionalFields(byte[] data) throws Exception {
+        byte[] plain = gzip(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[]{0x1F, (byte) 0x8B, 8, 2 | 4 | 8 | 16, 0, 0, 0, 0, 0, (byte) 0xFF});
+        out.write(new byte[]{3, 0, 'a', 'b', 'c'});
+        out.write("body.json\0".getBytes(StandardCharsets.US_ASCII));
+        out.write("comment\0".getBytes(StandardCharsets.US_ASCII));
+        out.write(new byte[]{0x12, 0x34});
+        out.write(plain, 10, plain.length - 10);
+        return out.toByteArray();
+    }
+
+    private static byte[] inflateInChunks(StreamInflater inflater, byte[] in, int chunk, int limit) {
+        byte[] out = new byte[limit];
+        int count = 0;
+        for (int off = 0; off < in.length; off += chunk) {
+            count += inflater.inflate(in, off, Math.min(chunk, in.length - off), out, count, limit);
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    @Test
+    void gzipHeaderSplitAcrossWrites() throws Exception {
+        StreamInflater inflater = new StreamInflater(true);
+        assertArrayEquals(TEXT, inflateInChunks(inflater, gzipWithOptionalFields(TEXT), 1, 1024));
+        assertTrue(inflater.isFinished());
+        assertFalse(inflater.isFailed());
+    }
+
+    @Test
+    void zlibWrappedDeflate() {
+        StreamInflater inflater = new StreamInflater(false);
+        assertArrayEquals(TEXT, inflateInChunks(inflater, deflate(TEXT, false), 7, 1024));
+        assertTrue(inflater.isFinished());
+    }
+
+    @Test
+    void rawDeflate() {
+        StreamInflater inflater = new StreamInflater(false);
+        assertArrayEquals(TEXT, inflateInChunks(inflater, deflate(TEXT, true), 7, 1024));
+        assertTrue(inflater.isFinished());
+    }
+
+    @Test
+    void stopsExactlyAtLimitOnCompressibleInput() throws Exception {
+        byte[] zeros = new byte[16 * 1024 * 1024];
+        byte[] compressed = gzip(zeros);
+        StreamInflater inflater = new StreamInflater(true);
+        byte[] out = inflateInChunks(inflater, compressed, 4096, 100);
+        assertEquals(100, out.length);
+        assertTrue(inflater.isTruncated());
+        assertFalse(inflater.isFinished());
+
+        // 停止后不再解压
+        assertEquals(0, inflater.inflate(compressed, 0, compressed.length, new byte[100], 0, 100));
+    }
+
+    @Test
+    void outputFillingLimitExactlyIsNotTruncated() throws Exception {
+        StreamInflater inflater = new StreamInflater(true);
+        assertArrayEquals(TEXT, inflateInChunks(inflater, gzip(TEXT), 1024, TEXT.length));
+        assertTrue(inflater.isFinished());
+        assertFalse(inflater.isTruncated());
+    }
+
+    @Test
+    void truncatedStreamIsNeitherFinishedNorFailed() throws Exception {
+        byte[] compressed = gzip(TEXT);
+        StreamInflater inflater = new StreamInflater(true);
+        byte[] out = inflateInChunks(inflater, Arrays.copyOf(compressed, compressed.length / 2), 5, 1024);
+        assertTrue(out.length < TEXT.length);
+        assertFalse(inflater.isFinished());
+        assertFalse(inflater.isFailed());
+        assertFalse(inflater.isTruncated());
+        inflater.end();
+    }
+
+    @Test
+    void badGzipMagicFails() {
+        StreamInflater inflater = new StreamInflater(true);
+        assertEquals(0, inflater.inflate(TEXT, 0, TEXT.length, new byte[1024], 0, 1024));
+        assertTrue(inflater.isFailed());
+    }
+
+    @Test
+    void corruptDeflateDataFails() {
+        byte[] compressed = deflate(TEXT, false);
+        // 保留 zlib 头，破坏压缩块类型
+        for (int i = 2; i < compressed.length; i++) {
+            compressed[i] = (byte) 0xFF;
+        }
+        StreamInflater inflater = new StreamInflater(false);
+        inflateInChunks(inflater, compressed, 4, 1024);
+        assertTrue(inflater.isFailed());
+    }
+}
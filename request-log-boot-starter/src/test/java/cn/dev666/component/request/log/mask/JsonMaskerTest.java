@@ -0,0 +1,72 @@
+package cn.dev666.component.request.log.mask;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonMaskerTest {
+
+    private final JsonMasker masker = new JsonMasker(Arrays.asList("password", "$.user.idCard"), "******");
+
+    private String mask(String json, boolean complete) {
+        StringBuilder out = new StringBuilder();
+        assertEquals(complete, masker.mask(json, out));
+        return out.toString();
+    }
+
+    @Test
+    void keepsFormattedJsonAsIs() {
+        String json = "{\n"
+                + "  \"user\" : {\n"
+                + "    \"name\" : \"tom\",\n"
+                + "    \"idCard\" : \"110101199003071234\",\n"
+                + "    \"age\" : 1.50\n"
+                + "  },\n"
+                + "  \"password\" : {\n"
+                + "    \"old\" : \"a\"\n"
+                + "  }\n"
+                + "}\n";
+        String expected = "{\n"
+                + "  \"user\" : {\n"
+                + "    \"name\" : \"tom\",\n"
+                + "    \"idCard\" : \"******\",\n"
+                + "    \"age\" : 1.50\n"
+                + "  },\n"
+                + "  \"password\" : \"******\"\n"
+                + "}\n";
+        assertEquals(expected, mask(json, true));
+    }
+
+    @Test
+    void keepsTruncatedTail() {
+        String json = "{\"password\":\"secret\", \"items\":[{\"name\":\"long descrip";
+        assertEquals("{\"password\":\"******\", \"items\":[{\"name\":\"long descrip", mask(json, false));
+    }
+
+    @Test
+    void masksValueCutByTruncation() {
+        assertEquals("{\"a\":1, \"password\":\"******\"", mask("{\"a\":1, \"password\":\"secr", false));
+        // 字段值尚未出现，没有需要替换的内容
+        assertEquals("{\"a\":1, \"password\":", mask("{\"a\":1, \"password\":", false));
+        assertEquals("{\"a\":1, \"password\":\"******\"", mask("{\"a\":1, \"password\":{\"x\":[1,", false));
+    }
+
+    @Test
+    void marksMalformedJson() {
+        String masked = mask("{\"a\":1, \"b\":oops, \"password\":\"secret\"}", false);
+        assertEquals("{\"a\":1" + JsonMasker.MALFORMED, masked);
+        assertFalse(masked.contains("secret"));
+    }
+
+    @Test
+    void escapesReplacement() {
+        JsonMasker quoted = new JsonMasker(Arrays.asList("password"), "\"*\"");
+        StringBuilder out = new StringBuilder();
+        assertTrue(quoted.mask("{\"password\":\"x\"}", out));
+        assertEquals("{\"password\":\"\\\"*\\\"\"}", out.toString());
+    }
+}
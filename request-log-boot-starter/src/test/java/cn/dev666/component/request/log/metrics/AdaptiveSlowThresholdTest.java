@@ -0,0 +1,28 @@
+package cn.dev666.component.request.log.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveSlowThresholdTest {
+
+    @Test
+    void overridesMatchFirstConfiguredPattern() {
+        Map<String, Duration> overrides = new LinkedHashMap<>();
+        overrides.put("/batch/report/*", Duration.ofSeconds(5));
+        overrides.put("/batch/**", Duration.ofSeconds(30));
+        AdaptiveSlowThreshold threshold = new AdaptiveSlowThreshold(Duration.ofSeconds(1), 3, Duration.ofMillis(100),
+                100, Duration.ofMinutes(1), 10, overrides, 16);
+
+        assertFalse(threshold.isSlow(null, "GET", "/batch/import/run", 20_000, 0));
+        assertTrue(threshold.isSlow(null, "GET", "/batch/report/day", 6_000, 0));
+        // 缓存命中后结果不变
+        assertTrue(threshold.isSlow(null, "GET", "/batch/report/day", 6_000, 0));
+        assertTrue(threshold.isSlow(null, "GET", "/orders", 2_000, 0));
+    }
+}
@@ -0,0 +1,52 @@
+package cn.dev666.component.request.log.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecayingHistogramTest {
+
+    private static final long INTERVAL = 60_000;
+
+    @Test
+    void decaysOncePerElapsedInterval() {
+        DecayingHistogram histogram = new DecayingHistogram(INTERVAL, 0.99, 100);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 1024; i++) {
+            histogram.record(10, start);
+        }
+
+        // 一个周期后减半
+        histogram.record(10, start + INTERVAL);
+        assertEquals(512 + 1, histogram.getCount());
+
+        // 空闲十个周期后约剩千分之一
+        histogram.record(10, start + INTERVAL * 11);
+        assertEquals((513 >> 10) + 1, histogram.getCount());
+    }
+
+    @Test
+    void percentileReadyWhenMinSamplesReached() {
+        long now = System.currentTimeMillis();
+        DecayingHistogram histogram = new DecayingHistogram(INTERVAL, 0.99, 10);
+        for (int i = 0; i < 10; i++) {
+            histogram.record(200, now);
+        }
+        assertTrue(histogram.getPercentile() >= 200, String.valueOf(histogram.getPercentile()));
+    }
+
+    @Test
+    void fastRouteNotSlowRightAfterWarmUp() {
+        long now = System.currentTimeMillis();
+        AdaptiveSlowThreshold threshold = new AdaptiveSlowThreshold(Duration.ofSeconds(3), 2,
+                Duration.ofMillis(100), 10, Duration.ofMinutes(1), 10, null, 0);
+        for (int i = 0; i < 10; i++) {
+            threshold.isSlow("/orders", "GET", "/orders", 150, now);
+        }
+        assertFalse(threshold.isSlow("/orders", "GET", "/orders", 160, now));
+    }
+}
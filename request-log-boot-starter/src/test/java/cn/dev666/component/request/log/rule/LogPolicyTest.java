@@ -0,0 +1,20 @@
+package cn.dev666.component.request.log.rule;
+
+import cn.dev666.component.request.log.enums.LogRequestLevel;
+import cn.dev666.component.request.log.enums.LogResponseLevel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogPolicyTest {
+
+    @Test
+    void keepsConfiguredHeaderSpelling() {
+        LogPolicy policy = new LogPolicy(false, LogRequestLevel.URL_BODY_SOME_HEADER, LogResponseLevel.ALL,
+                new LinkedHashSet<>(Arrays.asList("Content-Type", " X-Trace-Id ", "content-type")), 1024, 1024);
+        assertEquals(Arrays.asList("Content-Type", "X-Trace-Id"), policy.getHeaders());
+    }
+}
@@ -0,0 +1,79 @@
+package cn.dev666.component.request.log.rule;
+
+import cn.dev666.component.request.log.enums.LogRequestLevel;
+import cn.dev666.component.request.log.enums.LogResponseLevel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogRuleMatcherTest {
+
+    private final LogPolicy defaultPolicy = policy(false);
+
+    private final LogPolicy excluded = policy(true);
+
+    private final LogPolicy urlOnly = policy(false);
+
+    private final LogPolicy regexPolicy = policy(false);
+
+    private static LogPolicy policy(boolean excluded) {
+        return new LogPolicy(excluded, LogRequestLevel.URL, LogResponseLevel.ALL, null, 1024, 1024);
+    }
+
+    @Test
+    void noRulesUsesDefault() {
+        LogRuleMatcher matcher = new LogRuleMatcher(defaultPolicy, Collections.emptyList(), 16);
+        assertSame(defaultPolicy, matcher.match("/orders"));
+        assertEquals(0, matcher.getCachedCount());
+    }
+
+    @Test
+    void regexBeforeAntRuleWins() {
+        LogRuleMatcher matcher = new LogRuleMatcher(defaultPolicy, Arrays.asList(
+                new LogRule("/orders/\\d+", true, regexPolicy),
+                new LogRule("/orders/*", false, urlOnly)), 16);
+        assertSame(regexPolicy, matcher.match("/orders/42"));
+        assertSame(urlOnly, matcher.match("/orders/abc"));
+        assertSame(defaultPolicy, matcher.match("/users/42"));
+    }
+
+    @Test
+    void antBeforeRegexRuleWins() {
+        LogRuleMatcher matcher = new LogRuleMatcher(defaultPolicy, Arrays.asList(
+                new LogRule("/actuator/**", false, excluded),
+                new LogRule("/.*", true, regexPolicy)), 16);
+        assertSame(excluded, matcher.match("/actuator/health"));
+        assertSame(regexPolicy, matcher.match("/orders"));
+    }
+
+    @Test
+    void cacheClearedWhenFull() {
+        LogRuleMatcher matcher = new LogRuleMatcher(defaultPolicy,
+                Collections.singletonList(new LogRule("/orders/*", false, urlOnly)), 4);
+        for (int i = 0; i < 4; i++) {
+            assertSame(urlOnly, matcher.match("/orders/" + i));
+        }
+        assertEquals(4, matcher.getCachedCount());
+
+        // 缓存满后清空，只保留本次结果
+        assertSame(defaultPolicy, matcher.match("/users/1"));
+        assertEquals(1, matcher.getCachedCount());
+        // 缓存的结果与重新匹配一致
+        assertSame(defaultPolicy, matcher.match("/users/1"));
+        assertSame(urlOnly, matcher.match("/orders/0"));
+        assertTrue(matcher.getCachedCount() <= 4);
+    }
+
+    @Test
+    void zeroCacheSizeDisablesCache() {
+        LogRuleMatcher matcher = new LogRuleMatcher(defaultPolicy,
+                Collections.singletonList(new LogRule("/orders/*", false, urlOnly)), 0);
+        assertSame(urlOnly, matcher.match("/orders/1"));
+        assertEquals(0, matcher.getCachedCount());
+    }
+}
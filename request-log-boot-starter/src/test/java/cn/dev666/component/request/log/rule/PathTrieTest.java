@@ -0,0 +1,58 @@
+package cn.dev666.component.request.log.rule;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PathTrieTest {
+
+    private static PathTrie trie(String... patterns) {
+        PathTrie trie = new PathTrie();
+        for (int i = 0; i < patterns.length; i++) {
+            trie.add(patterns[i], i);
+        }
+        return trie;
+    }
+
+    @Test
+    void literalSegments() {
+        PathTrie trie = trie("/orders/list");
+        assertEquals(0, trie.match("/orders/list"));
+        assertEquals(0, trie.match("orders/list/"));
+        assertEquals(PathTrie.NO_MATCH, trie.match("/orders"));
+        assertEquals(PathTrie.NO_MATCH, trie.match("/orders/list/1"));
+    }
+
+    @Test
+    void singleWildcardMatchesOneSegment() {
+        PathTrie trie = trie("/orders/*", "/users/{id}/profile", "/files/*.json");
+        assertEquals(0, trie.match("/orders/1"));
+        assertEquals(PathTrie.NO_MATCH, trie.match("/orders"));
+        assertEquals(PathTrie.NO_MATCH, trie.match("/orders/1/items"));
+        assertEquals(1, trie.match("/users/42/profile"));
+        assertEquals(2, trie.match("/files/a.json"));
+        assertEquals(PathTrie.NO_MATCH, trie.match("/files/a.xml"));
+    }
+
+    @Test
+    void doubleWildcardMatchesZeroOrMoreSegments() {
+        PathTrie trie = trie("/actuator/**", "/**/export", "/api/**/detail");
+        assertEquals(0, trie.match("/actuator"));
+        assertEquals(0, trie.match("/actuator/health/liveness"));
+        assertEquals(1, trie.match("/export"));
+        assertEquals(1, trie.match("/reports/2024/export"));
+        assertEquals(2, trie.match("/api/detail"));
+        assertEquals(2, trie.match("/api/orders/1/detail"));
+        assertEquals(PathTrie.NO_MATCH, trie.match("/api/orders/1"));
+    }
+
+    @Test
+    void earliestConfiguredPatternWins() {
+        PathTrie trie = trie("/orders/**", "/orders/list", "/**");
+        assertEquals(0, trie.match("/orders/list"));
+        assertEquals(2, trie.match("/users"));
+
+        PathTrie reversed = trie("/**", "/orders/list");
+        assertEquals(0, reversed.match("/orders/list"));
+    }
+}
@@ -0,0 +1,102 @@
+package cn.dev666.component.request.log.sampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketSamplerTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void burstThenOnePerInterval() {
+        TokenBucketSampler sampler = new TokenBucketSampler(4, 16);
+        long t0 = System.nanoTime();
+
+        // 新桶允许一秒的突发量
+        for (int i = 0; i < 4; i++) {
+            assertTrue(sampler.sample("/orders", t0), "permit " + i);
+        }
+        assertFalse(sampler.sample("/orders", t0));
+        assertFalse(sampler.sample("/orders", t0 + 249 * MILLIS));
+
+        // 每 250ms 回一个令牌
+        assertTrue(sampler.sample("/orders", t0 + 250 * MILLIS));
+        assertFalse(sampler.sample("/orders", t0 + 250 * MILLIS));
+        assertTrue(sampler.sample("/orders", t0 + 500 * MILLIS));
+        assertFalse(sampler.sample("/orders", t0 + 500 * MILLIS));
+
+        // 空闲足够久后回满，但不超过突发量
+        long later = t0 + 10_000 * MILLIS;
+        for (int i = 0; i < 4; i++) {
+            assertTrue(sampler.sample("/orders", later), "permit " + i);
+        }
+        assertFalse(sampler.sample("/orders", later));
+    }
+
+    @Test
+    void bucketsPerUri() {
+        TokenBucketSampler sampler = new TokenBucketSampler(1, 16);
+        long t0 = System.nanoTime();
+
+        assertTrue(sampler.sample("/a", t0));
+        assertFalse(sampler.sample("/a", t0));
+        assertTrue(sampler.sample("/b", t0));
+        assertFalse(sampler.sample("/a", t0 + 999 * MILLIS));
+        assertTrue(sampler.sample("/a", t0 + 1000 * MILLIS));
+        assertEquals(2, sampler.getTrackedCount());
+    }
+
+    @Test
+    void sweepRefilledBucketsOncePerSecond() {
+        TokenBucketSampler sampler = new TokenBucketSampler(4, 2);
+        long t0 = System.nanoTime();
+
+        assertTrue(sampler.sample("/a", t0));
+        assertTrue(sampler.sample("/b", t0));
+
+        // 已满且无回满的桶，清理无效，其余URI共用溢出桶
+        for (int i = 0; i < 4; i++) {
+            assertTrue(sampler.sample("/c", t0), "permit " + i);
+        }
+        assertFalse(sampler.sample("/d", t0));
+        assertEquals(2, sampler.getTrackedCount());
+
+        // /a、/b 已回满，但距上次清理不足一秒，不清理，仍走溢出桶
+        assertTrue(sampler.sample("/d", t0 + 500 * MILLIS));
+        assertTrue(sampler.sample("/e", t0 + 500 * MILLIS));
+        assertFalse(sampler.sample("/f", t0 + 500 * MILLIS));
+        assertEquals(2, sampler.getTrackedCount());
+
+        // 一秒后清理回满的桶，新URI获得独立的桶
+        assertTrue(sampler.sample("/d", t0 + 1000 * MILLIS));
+        assertEquals(1, sampler.getTrackedCount());
+        assertTrue(sampler.sample("/e", t0 + 1000 * MILLIS));
+        assertEquals(2, sampler.getTrackedCount());
+    }
+
+    @Test
+    void sweepKeepsBucketsNotRefilled() {
+        TokenBucketSampler sampler = new TokenBucketSampler(1, 2);
+        long t0 = System.nanoTime();
+
+        assertTrue(sampler.sample("/a", t0));
+        assertTrue(sampler.sample("/b", t0 + 500 * MILLIS));
+
+        // /a 已回满被清理，/b 未回满保留，限流状态不丢失
+        assertTrue(sampler.sample("/c", t0 + 1000 * MILLIS));
+        assertEquals(2, sampler.getTrackedCount());
+        assertFalse(sampler.sample("/b", t0 + 1000 * MILLIS));
+        assertTrue(sampler.sample("/b", t0 + 1500 * MILLIS));
+    }
+
+    @Test
+    void invalidPermits() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketSampler(0, 16));
+    }
+}
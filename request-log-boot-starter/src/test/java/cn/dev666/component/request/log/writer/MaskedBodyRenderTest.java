@@ -0,0 +1,60 @@
+package cn.dev666.component.request.log.writer;
+
+import cn.dev666.component.request.log.mask.JsonMasker;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MaskedBodyRenderTest {
+
+    private final JsonMasker masker = new JsonMasker(Collections.singleton("password"), "******");
+
+    private static LogRecord response(String body, int limit) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        LogRecord record = new LogRecord(false);
+        record.setMethod("POST");
+        record.setUri("/login");
+        record.setStatus(200);
+        record.setReasonPhrase("OK");
+        record.setCostTime(5);
+        record.setLogBody(true);
+        record.setBody(bytes);
+        record.setBodyLength(bytes.length);
+        record.setBodyTotal(bytes.length);
+        record.setBodyLimit(limit);
+        record.setCharset(StandardCharsets.UTF_8);
+        return record;
+    }
+
+    @Test
+    void textKeepsTruncatedTailBeforeMarker() {
+        String body = "{\"password\":\"secret\",\"name\":\"tom and jerry\"}";
+        StringBuilder builder = new StringBuilder();
+        new TextLogRenderer(masker).render(response(body, 36), builder);
+        assertEquals("POST /login, 200 OK, 5 ms\n\n{\"password\":\"******\",\"name\":\"tom and...(共44字节)\n",
+                builder.toString());
+    }
+
+    @Test
+    void textKeepsFormattedBody() {
+        String body = "{\n  \"password\" : \"secret\",\n  \"name\" : \"tom\"\n}";
+        StringBuilder builder = new StringBuilder();
+        new TextLogRenderer(masker).render(response(body, 1024), builder);
+        assertEquals("POST /login, 200 OK, 5 ms\n\n{\n  \"password\" : \"******\",\n  \"name\" : \"tom\"\n}\n",
+                builder.toString());
+    }
+
+    @Test
+    void jsonEmbedsFormattedBodyOnOneLine() {
+        String body = "{\n  \"password\" : \"secret\",\n  \"name\" : \"tom\"\n}";
+        StringBuilder builder = new StringBuilder();
+        new JsonLogRenderer(masker).render(response(body, 1024), builder);
+        String line = builder.toString();
+        assertTrue(line.contains("\"body\":{   \"password\" : \"******\",   \"name\" : \"tom\" }"), line);
+        assertTrue(line.indexOf('\n') < 0 || line.indexOf('\n') == line.length() - 1, line);
+    }
+}